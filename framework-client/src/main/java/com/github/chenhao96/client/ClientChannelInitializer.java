@@ -0,0 +1,47 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.client;
+
+import com.github.chenhao96.component.netty.NettyCompressionCodec;
+import com.github.chenhao96.component.netty.NettyHeartbeatHandler;
+import com.github.chenhao96.model.ConfigProperty;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+
+class ClientChannelInitializer extends ChannelInitializer<SocketChannel> {
+
+    private final NettyClient client;
+    private final ClientConnection connection;
+
+    ClientChannelInitializer(NettyClient client, ClientConnection connection) {
+        this.client = client;
+        this.connection = connection;
+    }
+
+    @Override
+    protected void initChannel(SocketChannel socketChannel) throws Exception {
+        socketChannel.pipeline().addLast("flushConsolidation",
+                new FlushConsolidationHandler(ConfigProperty.getExplicitFlushAfterFlushes(), true));
+        socketChannel.pipeline().addLast("codec", new ClientCommonCodec(client.getMaxFrameLength()));
+        socketChannel.pipeline().addLast("compression",
+                new NettyCompressionCodec(client.getCompressThreshold(), client.getMaxFrameLength()));
+        socketChannel.pipeline().addLast("heartbeat", new NettyHeartbeatHandler(client.getTimer()));
+        socketChannel.pipeline().addLast("handler", new ClientResponseHandler(connection));
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.client;
+
+import com.github.chenhao96.component.net.CommonsMessage;
+import com.github.chenhao96.component.net.ConnectionHandshake;
+import com.github.chenhao96.component.netty.NettyCommonCodecFactory;
+import com.github.chenhao96.component.netty.NettyCompressionCodec;
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * The client side of the handshake: applies the server's answer instead of answering it,
+ * then tells the pipeline with the accepted {@link ConnectionHandshake} as a user event.
+ */
+class ClientCommonCodec extends NettyCommonCodecFactory {
+
+    ClientCommonCodec(int maxFrameLength) {
+        super(maxFrameLength);
+    }
+
+    @Override
+    protected void handshake(ChannelHandlerContext channelHandlerContext, CommonsMessage message) {
+        ConnectionHandshake handshake = ConnectionHandshake.accept(message);
+        message.release();
+        setChecksum(handshake.getChecksum());
+        NettyCompressionCodec compressionCodec = channelHandlerContext.pipeline().get(NettyCompressionCodec.class);
+        if (compressionCodec != null) compressionCodec.setCompressor(handshake.getCompressor());
+        channelHandlerContext.fireUserEventTriggered(handshake);
+    }
+}
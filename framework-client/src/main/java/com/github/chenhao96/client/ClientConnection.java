@@ -0,0 +1,189 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.client;
+
+import com.github.chenhao96.component.net.CommonsMessage;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+import java.nio.channels.ClosedChannelException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One multiplexed connection of a {@link NettyClient}, requests are matched to their
+ * responses by request ID so any number of them can be outstanding at once.
+ */
+class ClientConnection {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClientConnection.class);
+
+    private final NettyClient client;
+    private final Bootstrap bootstrap;
+    private final AtomicInteger requestIds = new AtomicInteger();
+    private final Map<Integer, CompletableFuture<CommonsMessage>> pending = new ConcurrentHashMap<>();
+
+    private volatile Channel channel;
+    private volatile boolean ready;
+    private volatile boolean closed;
+    private long reconnectDelay;
+    private volatile Timeout handshakeTimeout;
+
+    ClientConnection(NettyClient client, Bootstrap bootstrap) {
+        this.client = client;
+        this.bootstrap = bootstrap.clone().handler(new ClientChannelInitializer(client, this));
+        this.reconnectDelay = client.getReconnectMinDelay();
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    void connect() {
+        if (closed) return;
+        bootstrap.connect(client.getHost(), client.getPort()).addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                LOGGER.warn("connect {}:{} fail:{}", client.getHost(), client.getPort(), String.valueOf(future.cause()));
+                scheduleReconnect();
+            }
+        });
+    }
+
+    private void scheduleReconnect() {
+        if (closed) return;
+        long delay;
+        synchronized (this) {
+            delay = reconnectDelay;
+            reconnectDelay = Math.min(reconnectDelay * 2, client.getReconnectMaxDelay());
+        }
+        client.getEventLoopGroup().schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    void channelActive(Channel channel) {
+        this.channel = channel;
+        CommonsMessage offer = client.createHandshakeOffer();
+        if (offer == null) {
+            handshakeDone(channel);
+            return;
+        }
+        handshakeTimeout = client.getTimer().newTimeout(timeout -> {
+            if (!ready && channel.isActive()) {
+                LOGGER.warn("handshake with {}:{} timed out, reconnect.", client.getHost(), client.getPort());
+                channel.close();
+            }
+        }, client.getConnectTimeout(), TimeUnit.MILLISECONDS);
+        channel.writeAndFlush(offer);
+    }
+
+    void handshakeDone(Channel channel) {
+        if (handshakeTimeout != null) handshakeTimeout.cancel();
+        synchronized (this) {
+            reconnectDelay = client.getReconnectMinDelay();
+        }
+        ready = true;
+        if (closed) channel.close();
+    }
+
+    void channelInactive(Channel channel) {
+        if (this.channel == channel) {
+            this.ready = false;
+            this.channel = null;
+        }
+        if (handshakeTimeout != null) handshakeTimeout.cancel();
+        failPending(new ClosedChannelException());
+        scheduleReconnect();
+    }
+
+    void exceptionCaught(Throwable cause) {
+        LOGGER.warn("connection {}:{} fail.", client.getHost(), client.getPort(), cause);
+    }
+
+    CompletableFuture<CommonsMessage> call(CommonsMessage request) {
+        CompletableFuture<CommonsMessage> future = new CompletableFuture<>();
+        Channel channel = this.channel;
+        if (channel == null || !ready) {
+            future.completeExceptionally(new ConnectException("connection is not ready"));
+            return future;
+        }
+
+        int requestId = nextRequestId();
+        request.setRequestId(requestId);
+        pending.put(requestId, future);
+        Timeout timeout = client.getTimer().newTimeout(t -> {
+            if (pending.remove(requestId, future)) {
+                future.completeExceptionally(new TimeoutException("request " + requestId + " timed out"));
+            }
+        }, client.getRequestTimeout(), TimeUnit.MILLISECONDS);
+        future.whenComplete((response, cause) -> timeout.cancel());
+
+        channel.writeAndFlush(request).addListener((ChannelFutureListener) writeFuture -> {
+            if (!writeFuture.isSuccess() && pending.remove(requestId, future)) {
+                future.completeExceptionally(writeFuture.cause());
+            }
+        });
+        return future;
+    }
+
+    private int nextRequestId() {
+        int requestId = requestIds.incrementAndGet();
+        if (requestId == CommonsMessage.NO_REQUEST_ID) requestId = requestIds.incrementAndGet();
+        return requestId;
+    }
+
+    void messageReceived(CommonsMessage message) {
+        if (!message.hasRequestId()) {
+            client.pushReceived(message);
+            return;
+        }
+        CompletableFuture<CommonsMessage> future = pending.remove(message.getRequestId());
+        if (future != null) future.complete(message);
+    }
+
+    private void failPending(Throwable cause) {
+        for (Integer requestId : pending.keySet()) {
+            CompletableFuture<CommonsMessage> future = pending.remove(requestId);
+            if (future != null) future.completeExceptionally(cause);
+        }
+    }
+
+    void close() {
+        closed = true;
+        ready = false;
+        Channel channel = this.channel;
+        if (channel != null) {
+            ChannelFuture closeFuture = channel.close();
+            // on its own event loop the close cannot finish while we wait, netty throws BlockingOperationException
+            if (!channel.eventLoop().inEventLoop()) closeFuture.awaitUninterruptibly();
+        }
+        failPending(new ClosedChannelException());
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.client;
+
+import com.github.chenhao96.component.net.CommonsMessage;
+import com.github.chenhao96.component.net.ConnectionHandshake;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+
+class ClientResponseHandler extends SimpleChannelInboundHandler<CommonsMessage> {
+
+    private final ClientConnection connection;
+
+    ClientResponseHandler(ClientConnection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        connection.channelActive(ctx.channel());
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        connection.channelInactive(ctx.channel());
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof ConnectionHandshake) {
+            connection.handshakeDone(ctx.channel());
+            return;
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, CommonsMessage message) throws Exception {
+        // copy the payload out of the pooled buffer, the future may be completed long after this read
+        message.getData();
+        message.release();
+        connection.messageReceived(message);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        connection.exceptionCaught(cause);
+        ctx.close();
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.client;
+
+import com.github.chenhao96.component.net.CommonsMessage;
+import com.github.chenhao96.component.net.ConnectionHandshake;
+import com.github.chenhao96.component.net.checksum.FrameChecksum;
+import com.github.chenhao96.component.net.compress.FrameCompressor;
+import com.github.chenhao96.model.ConfigProperty;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.Closeable;
+import java.net.ConnectException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A pool of multiplexed connections to one server speaking the {@link CommonsMessage} protocol.
+ * <p>
+ * Every call gets a request ID and a future, responses complete the future whatever order they
+ * come back in, so many calls can be pipelined on each connection. Broken connections are
+ * reconnected with exponential backoff, calls fail fast while no connection is ready.
+ */
+public class NettyClient implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NettyClient.class);
+
+    private final String host;
+    private final int port;
+
+    private int poolSize = 1;
+    private int ioThreads = 0;
+    private long connectTimeout = TimeUnit.SECONDS.toMillis(5);
+    private long requestTimeout = TimeUnit.SECONDS.toMillis(10);
+    private long reconnectMinDelay = 100L;
+    private long reconnectMaxDelay = TimeUnit.SECONDS.toMillis(30);
+    private int maxFrameLength = ConfigProperty.getMaxFrameLength();
+    private int compressThreshold = ConfigProperty.getCompressThreshold();
+    private FrameChecksum[] checksums;
+    private FrameCompressor[] compressors;
+    private Consumer<CommonsMessage> pushListener;
+
+    private boolean started;
+    private EventLoopGroup eventLoopGroup;
+    private HashedWheelTimer timer;
+    private volatile ClientConnection[] connections;
+    private final AtomicInteger nextConnection = new AtomicInteger();
+
+    public NettyClient(String host, int port) {
+        Assert.hasText(host, "host is required!");
+        this.host = host;
+        this.port = port;
+    }
+
+    public synchronized void start() {
+        if (started) return;
+        Assert.isTrue(poolSize > 0, "poolSize must be positive");
+        this.eventLoopGroup = new NioEventLoopGroup(ioThreads, new DefaultThreadFactory("netty-client", true));
+        this.timer = new HashedWheelTimer(new DefaultThreadFactory("netty-client-timer", true), 10, TimeUnit.MILLISECONDS);
+        Bootstrap bootstrap = new Bootstrap().group(eventLoopGroup).channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        this.connections = new ClientConnection[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            connections[i] = new ClientConnection(this, bootstrap);
+            connections[i].connect();
+        }
+        started = true;
+    }
+
+    public CompletableFuture<CommonsMessage> call(byte masterCode, byte slaveCode, byte[] payload) {
+        return call(new CommonsMessage(masterCode, slaveCode, payload));
+    }
+
+    public CompletableFuture<CommonsMessage> call(CommonsMessage request) {
+        Assert.notNull(request, "request is required!");
+        ClientConnection connection = nextReadyConnection();
+        if (connection == null) {
+            CompletableFuture<CommonsMessage> future = new CompletableFuture<>();
+            future.completeExceptionally(new ConnectException("no connection to " + host + ":" + port + " is ready"));
+            return future;
+        }
+        return connection.call(request);
+    }
+
+    private ClientConnection nextReadyConnection() {
+        ClientConnection[] connections = this.connections;
+        if (connections == null) return null;
+        int start = nextConnection.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < connections.length; i++) {
+            ClientConnection connection = connections[(start + i) % connections.length];
+            if (connection.isReady()) return connection;
+        }
+        return null;
+    }
+
+    public boolean isReady() {
+        return nextReadyConnection() != null;
+    }
+
+    public int getPendingCount() {
+        ClientConnection[] connections = this.connections;
+        if (connections == null) return 0;
+        int result = 0;
+        for (ClientConnection connection : connections) {
+            result += connection.getPendingCount();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!started) return;
+        started = false;
+        for (ClientConnection connection : connections) {
+            connection.close();
+        }
+        connections = null;
+        eventLoopGroup.shutdownGracefully();
+        timer.stop();
+    }
+
+    CommonsMessage createHandshakeOffer() {
+        boolean offerChecksum = checksums != null && checksums.length > 0;
+        boolean offerCompression = compressors != null && compressors.length > 0;
+        if (!offerChecksum && !offerCompression) return null;
+        return ConnectionHandshake.createOffer(checksums, compressors);
+    }
+
+    void pushReceived(CommonsMessage message) {
+        Consumer<CommonsMessage> listener = this.pushListener;
+        if (listener == null) return;
+        try {
+            listener.accept(message);
+        } catch (Exception e) {
+            LOGGER.warn("push listener fail. message:{}", message, e);
+        }
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    EventLoopGroup getEventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    HashedWheelTimer getTimer() {
+        return timer;
+    }
+
+    long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    long getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    long getReconnectMinDelay() {
+        return reconnectMinDelay;
+    }
+
+    long getReconnectMaxDelay() {
+        return reconnectMaxDelay;
+    }
+
+    int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+    int getCompressThreshold() {
+        return compressThreshold;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public void setIoThreads(int ioThreads) {
+        this.ioThreads = ioThreads;
+    }
+
+    public void setConnectTimeout(long connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public void setRequestTimeout(long requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    public void setReconnectDelay(long reconnectMinDelay, long reconnectMaxDelay) {
+        Assert.isTrue(reconnectMinDelay > 0 && reconnectMinDelay <= reconnectMaxDelay, "reconnect delay is fail!");
+        this.reconnectMinDelay = reconnectMinDelay;
+        this.reconnectMaxDelay = reconnectMaxDelay;
+    }
+
+    public void setMaxFrameLength(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    public void setCompressThreshold(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
+    public void setChecksums(FrameChecksum... checksums) {
+        this.checksums = checksums;
+    }
+
+    public void setCompressors(FrameCompressor... compressors) {
+        this.compressors = compressors;
+    }
+
+    public void setPushListener(Consumer<CommonsMessage> pushListener) {
+        this.pushListener = pushListener;
+    }
+}
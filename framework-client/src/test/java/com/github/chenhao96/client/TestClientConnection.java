@@ -0,0 +1,203 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.client;
+
+import com.github.chenhao96.component.net.CommonsMessage;
+import com.github.chenhao96.component.net.checksum.FrameChecksums;
+import com.github.chenhao96.component.netty.NettyCommonCodecFactory;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class TestClientConnection {
+
+    private static final int MAX_FRAME_LENGTH = 1 << 16;
+
+    private NettyClient client;
+
+    @Before
+    public void setUp() {
+        // nothing listens there, the client only provides the timer for the embedded connections
+        client = new NettyClient("127.0.0.1", 1);
+        client.setRequestTimeout(100);
+        client.setConnectTimeout(100);
+        client.setReconnectDelay(TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(1));
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+    }
+
+    private static CommonsMessage response(CommonsMessage request, byte value) {
+        CommonsMessage response = new CommonsMessage(request.getMasterCode(), request.getSlaveCode(), new byte[]{value});
+        response.setRequestId(request.getRequestId());
+        return response;
+    }
+
+    private static Throwable failureOf(CompletableFuture<CommonsMessage> future) throws Exception {
+        try {
+            future.get(1, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        Assert.fail("the call must fail");
+        return null;
+    }
+
+    @Test
+    public void testResponsesCompleteByRequestId() throws Exception {
+        client.start();
+        ClientConnection connection = new ClientConnection(client, new Bootstrap());
+        EmbeddedChannel channel = new EmbeddedChannel(new ClientResponseHandler(connection));
+        Assert.assertTrue(connection.isReady());
+
+        CompletableFuture<CommonsMessage> first = connection.call(new CommonsMessage((byte) 1, (byte) 1, new byte[]{1}));
+        CompletableFuture<CommonsMessage> second = connection.call(new CommonsMessage((byte) 1, (byte) 2, new byte[]{2}));
+        CommonsMessage firstRequest = channel.readOutbound();
+        CommonsMessage secondRequest = channel.readOutbound();
+        Assert.assertNotEquals(firstRequest.getRequestId(), secondRequest.getRequestId());
+        Assert.assertEquals(2, connection.getPendingCount());
+
+        channel.writeInbound(response(secondRequest, (byte) 20));
+        Assert.assertFalse(first.isDone());
+        Assert.assertArrayEquals(new byte[]{20}, second.get().getData());
+
+        channel.writeInbound(response(firstRequest, (byte) 10));
+        Assert.assertArrayEquals(new byte[]{10}, first.get().getData());
+        Assert.assertEquals(0, connection.getPendingCount());
+        connection.close();
+    }
+
+    @Test
+    public void testMessageWithoutRequestIdIsPushed() {
+        List<CommonsMessage> pushed = new ArrayList<>();
+        client.setPushListener(pushed::add);
+        client.start();
+        ClientConnection connection = new ClientConnection(client, new Bootstrap());
+        EmbeddedChannel channel = new EmbeddedChannel(new ClientResponseHandler(connection));
+
+        CompletableFuture<CommonsMessage> call = connection.call(new CommonsMessage((byte) 1, (byte) 1, new byte[]{1}));
+        channel.writeInbound(new CommonsMessage((byte) 2, (byte) 3, new byte[]{7}));
+
+        Assert.assertEquals(1, pushed.size());
+        Assert.assertEquals(3, pushed.get(0).getSlaveCode());
+        Assert.assertFalse(call.isDone());
+        connection.close();
+    }
+
+    @Test
+    public void testRequestTimeout() throws Exception {
+        client.start();
+        ClientConnection connection = new ClientConnection(client, new Bootstrap());
+        EmbeddedChannel channel = new EmbeddedChannel(new ClientResponseHandler(connection));
+
+        CompletableFuture<CommonsMessage> call = connection.call(new CommonsMessage((byte) 1, (byte) 1, new byte[]{1}));
+        CommonsMessage request = channel.readOutbound();
+        Assert.assertTrue(failureOf(call) instanceof TimeoutException);
+        Assert.assertEquals(0, connection.getPendingCount());
+
+        // a response arriving after the timeout is dropped
+        channel.writeInbound(response(request, (byte) 1));
+        Assert.assertEquals(0, connection.getPendingCount());
+        connection.close();
+    }
+
+    @Test
+    public void testCloseFailsPendingCalls() throws Exception {
+        client.start();
+        ClientConnection connection = new ClientConnection(client, new Bootstrap());
+        new EmbeddedChannel(new ClientResponseHandler(connection));
+
+        CompletableFuture<CommonsMessage> call = connection.call(new CommonsMessage((byte) 1, (byte) 1, new byte[]{1}));
+        connection.close();
+        Assert.assertTrue(failureOf(call) instanceof ClosedChannelException);
+        Assert.assertFalse(connection.isReady());
+    }
+
+    @Test
+    public void testCallBeforeConnectedFails() throws Exception {
+        client.start();
+        ClientConnection connection = new ClientConnection(client, new Bootstrap());
+
+        CompletableFuture<CommonsMessage> call = connection.call(new CommonsMessage((byte) 1, (byte) 1, new byte[]{1}));
+        Assert.assertTrue(failureOf(call) instanceof ConnectException);
+    }
+
+    @Test
+    public void testHandshake() throws Exception {
+        client.setChecksums(FrameChecksums.CRC32);
+        client.start();
+        ClientConnection connection = new ClientConnection(client, new Bootstrap());
+        ClientCommonCodec clientCodec = new ClientCommonCodec(MAX_FRAME_LENGTH);
+        EmbeddedChannel clientChannel = new EmbeddedChannel(clientCodec, new ClientResponseHandler(connection));
+        NettyCommonCodecFactory serverCodec = new NettyCommonCodecFactory(MAX_FRAME_LENGTH);
+        EmbeddedChannel serverChannel = new EmbeddedChannel(serverCodec);
+        Assert.assertFalse("calls wait for the handshake", connection.isReady());
+
+        ByteBuf offer = clientChannel.readOutbound();
+        serverChannel.writeInbound(offer);
+        Assert.assertSame(FrameChecksums.CRC32, serverCodec.getChecksum());
+        ByteBuf reply = serverChannel.readOutbound();
+        clientChannel.writeInbound(reply);
+        Assert.assertTrue(connection.isReady());
+        Assert.assertSame(FrameChecksums.CRC32, clientCodec.getChecksum());
+
+        CompletableFuture<CommonsMessage> call = connection.call(new CommonsMessage((byte) 1, (byte) 1, new byte[]{1}));
+        ByteBuf frame = clientChannel.readOutbound();
+        serverChannel.writeInbound(frame);
+        CommonsMessage request = serverChannel.readInbound();
+        Assert.assertArrayEquals(new byte[]{1}, request.getData());
+        request.release();
+
+        serverChannel.writeOutbound(response(request, (byte) 2));
+        clientChannel.writeInbound((ByteBuf) serverChannel.readOutbound());
+        Assert.assertArrayEquals(new byte[]{2}, call.get(1, TimeUnit.SECONDS).getData());
+        connection.close();
+    }
+
+    @Test
+    public void testHandshakeTimeout() throws Exception {
+        client.setChecksums(FrameChecksums.CRC32);
+        client.start();
+        ClientConnection connection = new ClientConnection(client, new Bootstrap());
+        EmbeddedChannel channel = new EmbeddedChannel(new ClientCommonCodec(MAX_FRAME_LENGTH), new ClientResponseHandler(connection));
+        ((ByteBuf) channel.readOutbound()).release();
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(2);
+        while (channel.isOpen() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertFalse("a connection without handshake reply is closed", channel.isOpen());
+        Assert.assertFalse(connection.isReady());
+        connection.close();
+    }
+}
@@ -37,6 +37,10 @@ public class JsonUtils {
         return new JsonUtils(objectMapper);
     }
 
+    public static ObjectMapper getMapperStatic() {
+        return JSON_UTILS.getMapper();
+    }
+
     public static String object2JsonStatic(Object obj) throws IOException {
         return JSON_UTILS.object2Json(obj);
     }
@@ -53,6 +57,10 @@ public class JsonUtils {
         return JSON_UTILS.jsonStr2TypeReference(jsonStr, valueTypeRef);
     }
 
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
     public String object2Json(Object obj) throws IOException {
         return mapper.writeValueAsString(obj);
     }
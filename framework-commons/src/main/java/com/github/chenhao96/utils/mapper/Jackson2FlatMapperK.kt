@@ -17,14 +17,18 @@ package com.github.chenhao96.utils.mapper
 
 import com.fasterxml.jackson.annotation.JsonInclude
 import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
 import com.fasterxml.jackson.databind.DeserializationFeature
 import com.fasterxml.jackson.databind.JsonNode
 import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.ObjectReader
+import com.fasterxml.jackson.databind.util.TokenBuffer
 import org.springframework.beans.BeanUtils
 import com.github.chenhao96.utils.StringUtil
 import com.github.chenhao96.utils.mapper.UpdateList
 import java.io.IOException
 import java.util.*
+import java.util.concurrent.ConcurrentHashMap
 
 final class Jackson2FlatMapperK {
 
@@ -32,8 +36,18 @@ final class Jackson2FlatMapperK {
         private val PARTING = "."
         private val ARRAY_PREFIX = "["
         private val ARRAY_SUFFIX = "]"
+        private const val PARTING_CHAR = '.'
+        private const val ARRAY_PREFIX_CHAR = '['
+        private const val ARRAY_SUFFIX_CHAR = ']'
+        private const val MAX_PRESIZE = 4096
         private val mapper: ObjectMapper = getObjectMapper()
 
+        private val readers: MutableMap<Class<*>, ObjectReader> = ConcurrentHashMap()
+
+        private fun readerFor(clazz: Class<*>): ObjectReader {
+            return readers.getOrPut(clazz) { mapper.readerFor(clazz) }
+        }
+
         private fun getObjectMapper(): ObjectMapper {
             val result = ObjectMapper()
             result.configure(JsonParser.Feature.ALLOW_SINGLE_QUOTES, true)
@@ -43,10 +57,17 @@ final class Jackson2FlatMapperK {
         }
     }
 
+    /**
+     * Binds the nested map through a {@link TokenBuffer} instead of JSON text, with one cached reader per class.
+     */
     @Throws(IOException::class)
     fun <T> fromFlatMapper(target: Map<String, Any>, clazz: Class<T>): T {
         val cacheMap = fromFlatMapper(target) ?: return BeanUtils.instantiateClass(clazz)
-        return mapper.readValue(mapper.writeValueAsString(cacheMap), clazz)
+        val buffer = TokenBuffer(mapper, false)
+        mapper.writeValue(buffer, cacheMap)
+        buffer.asParser(mapper).use { parser ->
+            return readerFor(clazz).readValue(parser)
+        }
     }
 
     fun toFlatMapper(obj: Any?): Map<String, Any>? {
@@ -62,10 +83,37 @@ final class Jackson2FlatMapperK {
         return resultMap
     }
 
+    /**
+     * Flattens a JSON payload straight from its bytes, streaming the tokens instead of building a tree.
+     */
+    @Throws(IOException::class)
+    fun toFlatMapper(data: ByteArray?, offset: Int, length: Int): Map<String, Any>? {
+        if (data == null || length == 0) return null
+        mapper.factory.createParser(data, offset, length).use { parser ->
+            // a flat entry takes some 16 bytes of JSON at least, presize so the map rarely rehashes
+            return toFlatMapper(parser, Math.min(length / 16, MAX_PRESIZE))
+        }
+    }
+
+    @Throws(IOException::class)
+    fun toFlatMapper(parser: JsonParser): Map<String, Any>? {
+        return toFlatMapper(parser, 0)
+    }
+
+    @Throws(IOException::class)
+    private fun toFlatMapper(parser: JsonParser, expectedSize: Int): Map<String, Any>? {
+        val token = parser.nextToken() ?: return null
+        val resultMap = LinkedHashMap<String, Any>(Math.max(16, expectedSize * 4 / 3 + 1))
+        doFlatten(parser, token, StringBuilder(64), resultMap)
+        return resultMap
+    }
+
     fun fromFlatMapper(target: Map<String, Any>?): Map<String, Any>? {
         if (target == null) return null
         val resultMap = LinkedHashMap<String, Any>()
-        doUnFlatten("", resultMap, target)
+        for ((key, value) in target) {
+            doUnFlatten(resultMap, key, value)
+        }
         return resultMap
     }
 
@@ -92,73 +140,150 @@ final class Jackson2FlatMapperK {
         }
     }
 
-    private fun doUnFlatten(propertyPrefix: String, resultMap: LinkedHashMap<String, Any>, target: Map<String, Any>) {
-        val entries = target.entries
-        for ((pKey, value) in entries) {
-            if (pKey.startsWith(propertyPrefix)) {
-                val key = pKey.substring(propertyPrefix.length)
-                if (key.contains(PARTING)) {
-                    processMap(propertyPrefix, resultMap, target, key)
-                    continue
-                } else if (checkArrayKey(key)) {
-                    processArray(resultMap, key, value)
-                    continue
+    /**
+     * Same keys and values as the tree walk, the path is kept in one builder that is cut back after every child.
+     */
+    @Throws(IOException::class)
+    private fun doFlatten(parser: JsonParser, token: JsonToken, path: StringBuilder, resultMap: MutableMap<String, Any>) {
+        val length = path.length
+        when (token) {
+            JsonToken.START_ARRAY -> {
+                var index = 0
+                var child = parser.nextToken()
+                while (child != JsonToken.END_ARRAY) {
+                    path.append(ARRAY_PREFIX_CHAR).append(index++).append(ARRAY_SUFFIX_CHAR)
+                    doFlatten(parser, child, path, resultMap)
+                    path.setLength(length)
+                    child = parser.nextToken()
+                }
+            }
+            JsonToken.START_OBJECT -> {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    if (length > 0) path.append(PARTING_CHAR)
+                    path.append(parser.currentName)
+                    doFlatten(parser, parser.nextToken(), path, resultMap)
+                    path.setLength(length)
                 }
-                resultMap.put(key, value)
             }
+            JsonToken.VALUE_NUMBER_FLOAT -> resultMap.put(path.toString(), parser.doubleValue.toString())
+            JsonToken.VALUE_NULL -> resultMap.put(path.toString(), "null")
+            else -> resultMap.put(path.toString(), parser.text)
         }
     }
 
-    @Suppress("UNCHECKED_CAST")
-    private fun processArray(resultMap: LinkedHashMap<String, Any>, key: String, value: Any) {
-        val index = (key.substring(key.indexOf(ARRAY_PREFIX) + 1, key.indexOf(ARRAY_SUFFIX))).toInt()
-        val tmpKey = key.substring(0, key.indexOf(ARRAY_PREFIX))
-        var item = resultMap[tmpKey] as? UpdateList<Any>
-        if (item == null) {
-            item = UpdateList<Any>()
-            resultMap.put(tmpKey, item)
-        }
-        item.put(index, value)
-    }
-
-    private fun checkArrayKey(key: String): Boolean {
-        val prefixIndex = key.indexOf(ARRAY_PREFIX)
-        val suffixIndex = key.indexOf(ARRAY_SUFFIX)
-        if (prefixIndex >= 0) {
-            if (suffixIndex == -1) {
-                throw IllegalArgumentException("The array key($key) is not found $ARRAY_SUFFIX !")
-            } else if (suffixIndex < prefixIndex) {
-                throw IllegalArgumentException("The array key $ARRAY_SUFFIX index < $ARRAY_PREFIX index !")
+    /**
+     * Walks every flat key once, segment by segment, creating the nested maps and lists on the way down;
+     * array indices are parsed in place and never become strings.
+     */
+    private fun doUnFlatten(resultMap: LinkedHashMap<String, Any>, key: String, value: Any) {
+        var map = resultMap
+        var start = 0
+        while (true) {
+            var end = key.indexOf(PARTING_CHAR, start)
+            val last = end < 0
+            if (last) end = key.length
+
+            val prefixIndex = indexOf(key, ARRAY_PREFIX_CHAR, start, end)
+            if (prefixIndex < 0) {
+                val name = key.substring(start, end)
+                if (last) {
+                    map.put(name, value)
+                    return
+                }
+                map = childMap(map, name)
+            } else {
+                var suffixIndex = checkArrayKey(key, start, end, prefixIndex)
+                var list = childList(map, key.substring(start, prefixIndex))
+                var index = parseIndex(key, prefixIndex + 1, suffixIndex)
+                // a[0][1]: every further index steps into a nested list
+                while (suffixIndex + 1 < end && key[suffixIndex + 1] == ARRAY_PREFIX_CHAR) {
+                    val nextSuffix = checkArrayKey(key, suffixIndex + 1, end, suffixIndex + 1)
+                    list = childList(list, index)
+                    index = parseIndex(key, suffixIndex + 2, nextSuffix)
+                    suffixIndex = nextSuffix
+                }
+                if (last) {
+                    list.put(index, value)
+                    return
+                }
+                map = childMap(list, index)
             }
-            return true
+            start = end + 1
+        }
+    }
+
+    private fun indexOf(key: String, ch: Char, start: Int, end: Int): Int {
+        for (i in start until end) {
+            if (key[i] == ch) return i
         }
-        return false
+        return -1
+    }
+
+    /**
+     * @return the index of the {@code ]} closing the {@code [} at prefixIndex
+     */
+    private fun checkArrayKey(key: String, start: Int, end: Int, prefixIndex: Int): Int {
+        if (indexOf(key, ARRAY_SUFFIX_CHAR, start, prefixIndex) >= 0) {
+            throw IllegalArgumentException("The array key $ARRAY_SUFFIX index < $ARRAY_PREFIX index !")
+        }
+        val suffixIndex = indexOf(key, ARRAY_SUFFIX_CHAR, prefixIndex, end)
+        if (suffixIndex == -1) {
+            throw IllegalArgumentException("The array key(${key.substring(start, end)}) is not found $ARRAY_SUFFIX !")
+        }
+        return suffixIndex
+    }
+
+    private fun parseIndex(key: String, start: Int, end: Int): Int {
+        var i = start
+        val negative = i < end && key[i] == '-'
+        if (negative) i++
+        if (i >= end) throw NumberFormatException("For input string: \"${key.substring(start, end)}\"")
+        var result = 0
+        while (i < end) {
+            val digit = key[i++] - '0'
+            if (digit < 0 || digit > 9) throw NumberFormatException("For input string: \"${key.substring(start, end)}\"")
+            result = result * 10 + digit
+        }
+        return if (negative) -result else result
     }
 
     @Suppress("UNCHECKED_CAST")
-    private fun processMap(propertyPrefix: String, resultMap: LinkedHashMap<String, Any>, target: Map<String, Any>, pKey: String) {
-        val key = pKey.substring(0, pKey.indexOf(PARTING))
-        if (checkArrayKey(key)) {
-            val index = (key.substring(key.indexOf(ARRAY_PREFIX) + 1, key.indexOf(ARRAY_SUFFIX))).toInt()
-            val tmpKey = key.substring(0, key.indexOf(ARRAY_PREFIX))
-            var item = resultMap[tmpKey] as? UpdateList<Any>
-            if (item == null) {
-                item = UpdateList<Any>()
-                resultMap.put(tmpKey, item)
-            }
-            var childMap = item[index] as? LinkedHashMap<String, Any>
-            if (childMap == null) {
-                childMap = LinkedHashMap<String, Any>()
-                item.put(index, childMap)
-            }
-            doUnFlatten(propertyPrefix + key + PARTING, childMap, target)
-        } else {
-            var item = resultMap[key] as? LinkedHashMap<String, Any>
-            if (item == null) {
-                item = LinkedHashMap<String, Any>()
-                resultMap.put(key, item)
-            }
-            doUnFlatten(propertyPrefix + key + PARTING, item, target)
+    private fun childMap(parent: LinkedHashMap<String, Any>, name: String): LinkedHashMap<String, Any> {
+        var child = parent[name] as? LinkedHashMap<String, Any>
+        if (child == null) {
+            child = LinkedHashMap()
+            parent.put(name, child)
+        }
+        return child
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun childMap(parent: UpdateList<Any>, index: Int): LinkedHashMap<String, Any> {
+        var child = parent[index] as? LinkedHashMap<String, Any>
+        if (child == null) {
+            child = LinkedHashMap()
+            parent.put(index, child)
+        }
+        return child
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun childList(parent: LinkedHashMap<String, Any>, name: String): UpdateList<Any> {
+        var child = parent[name] as? UpdateList<Any>
+        if (child == null) {
+            child = UpdateList()
+            parent.put(name, child)
+        }
+        return child
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun childList(parent: UpdateList<Any>, index: Int): UpdateList<Any> {
+        var child = parent[index] as? UpdateList<Any>
+        if (child == null) {
+            child = UpdateList()
+            parent.put(index, child)
         }
+        return child
     }
-}
\ No newline at end of file
+}
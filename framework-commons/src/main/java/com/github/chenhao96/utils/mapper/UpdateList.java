@@ -15,54 +15,133 @@
  */
 package com.github.chenhao96.utils.mapper;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
 import java.util.*;
 
+/**
+ * Sparse list filled by index from flattened keys like {@code cards[3].code}, iterating the present
+ * indices in order. Elements live in a growable array with a presence bitmap; the array only grows
+ * for indices close to the current size, anything else (negative, sparse or huge indices from
+ * untrusted keys) goes to a sorted overflow map instead. Overflow entries always lie beyond the
+ * array, so iterating the array and then the overflow stays in index order.
+ */
+@JsonSerialize(using = UpdateList.UpdateListSerializer.class)
 public class UpdateList<D> implements Iterable<D> {
 
+    private static final int DENSE_LIMIT = 1 << 16;
+    private static final int INITIAL_CAPACITY = 8;
+
     private int currentIndex;
-    private TreeMap<Integer, D> items;
+    private int size;
+    private Object[] elements;
+    private long[] present;
+    private TreeMap<Integer, D> overflow;
 
     public void put(int index, D value) {
-        if (items == null) {
-            items = new TreeMap<>();
-        }
         if (index > currentIndex) {
             currentIndex = index;
         }
-        items.put(index, value);
+        if (!isDense(index)) {
+            if (overflow == null) {
+                overflow = new TreeMap<>();
+            }
+            if (index >= 0 && !overflow.containsKey(index)) size++;
+            overflow.put(index, value);
+            return;
+        }
+        ensureCapacity(index);
+        long mask = 1L << index;
+        if ((present[index >>> 6] & mask) == 0) {
+            present[index >>> 6] |= mask;
+            size++;
+        }
+        elements[index] = value;
     }
 
+    @SuppressWarnings("unchecked")
     public D get(int index) {
-        return items == null ? null : items.get(index);
+        if (index < 0 || elements == null || index >= elements.length) {
+            return overflow == null ? null : overflow.get(index);
+        }
+        return (D) elements[index];
+    }
+
+    /**
+     * @return the number of present, non-negative indices
+     */
+    public int size() {
+        return size;
+    }
+
+    private boolean isDense(int index) {
+        if (index < 0) return false;
+        if (elements != null && index < elements.length) return true;
+        return index < DENSE_LIMIT && index < 2 * size + INITIAL_CAPACITY;
+    }
+
+    private void ensureCapacity(int index) {
+        if (elements == null) {
+            elements = new Object[Math.max(INITIAL_CAPACITY, index + 1)];
+            present = new long[((elements.length - 1) >>> 6) + 1];
+        } else if (index >= elements.length) {
+            elements = Arrays.copyOf(elements, Math.min(DENSE_LIMIT, Math.max(index + 1, elements.length << 1)));
+            present = Arrays.copyOf(present, ((elements.length - 1) >>> 6) + 1);
+        } else {
+            return;
+        }
+        if (overflow != null && !overflow.isEmpty()) {
+            // keep overflow strictly beyond the array, move what the array now covers
+            SortedMap<Integer, D> covered = overflow.subMap(0, elements.length);
+            for (Map.Entry<Integer, D> entry : covered.entrySet()) {
+                int i = entry.getKey();
+                present[i >>> 6] |= 1L << i;
+                elements[i] = entry.getValue();
+            }
+            covered.clear();
+        }
     }
 
     @Override
     public Iterator<D> iterator() {
-        return new UpdateListIterator(0);
+        return new UpdateListIterator();
     }
 
     private class UpdateListIterator implements Iterator<D> {
-        private int nextIndex;
-        private NavigableMap<Integer, D> navigableMap;
 
-        public UpdateListIterator(int nextIndex) {
-            this.nextIndex = nextIndex;
-        }
+        private int word;
+        private long bits = present == null ? 0L : present[0];
+        private Iterator<D> overflowIterator;
 
+        @Override
         public boolean hasNext() {
-            return items != null && this.nextIndex <= UpdateList.this.currentIndex;
+            while (bits == 0L) {
+                if (present == null || ++word >= present.length) return overflowIterator().hasNext();
+                bits = present[word];
+            }
+            return true;
         }
 
+        @Override
+        @SuppressWarnings("unchecked")
         public D next() {
-            if (hasNext()) {
-                navigableMap = items.tailMap(nextIndex, true);
-                Map.Entry<Integer, D> entry = navigableMap.firstEntry();
-                if (entry != null) {
-                    nextIndex = entry.getKey() + 1;
-                    return entry.getValue();
-                }
+            if (!hasNext()) throw new NoSuchElementException();
+            if (bits == 0L) return overflowIterator().next();
+            int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            return (D) elements[index];
+        }
+
+        private Iterator<D> overflowIterator() {
+            if (overflowIterator == null) {
+                overflowIterator = overflow == null
+                        ? Collections.emptyIterator() : overflow.tailMap(0, true).values().iterator();
             }
-            throw new NoSuchElementException();
+            return overflowIterator;
         }
     }
 
@@ -79,4 +158,24 @@ public class UpdateList<D> implements Iterable<D> {
         var2.append(']');
         return var2.toString();
     }
+
+    /**
+     * Writes the present elements as a plain JSON array.
+     */
+    @SuppressWarnings("rawtypes")
+    public static class UpdateListSerializer extends StdSerializer<UpdateList> {
+
+        public UpdateListSerializer() {
+            super(UpdateList.class);
+        }
+
+        @Override
+        public void serialize(UpdateList value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(value.size());
+            for (Object item : (Iterable<?>) value) {
+                provider.defaultSerializeValue(item, gen);
+            }
+            gen.writeEndArray();
+        }
+    }
 }
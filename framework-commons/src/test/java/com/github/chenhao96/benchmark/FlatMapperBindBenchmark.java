@@ -0,0 +1,80 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.chenhao96.TestModel;
+import com.github.chenhao96.utils.mapper.Jackson2FlatMapperK;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlatMapperBindBenchmark {
+
+    private Jackson2FlatMapperK flatMapper;
+    private ObjectMapper mapper;
+    private Map<String, Object> flat;
+
+    @Setup
+    public void setup() {
+        flatMapper = new Jackson2FlatMapperK();
+        // configured like the flat mapper's own, the previous implementation round tripped through it
+        mapper = new ObjectMapper();
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        TestModel model = new TestModel();
+        model.setA(7);
+        model.setH("player");
+        model.setJ(Arrays.asList("sword", "shield", "potion"));
+        Map<String, Object> extra = new HashMap<>();
+        extra.put("level", 12);
+        extra.put("guild", "north");
+        model.setL(extra);
+        model.setU('A');
+        flat = flatMapper.toFlatMapper(model);
+    }
+
+    @Benchmark
+    public TestModel tokenBuffer() throws IOException {
+        return flatMapper.fromFlatMapper(flat, TestModel.class);
+    }
+
+    @Benchmark
+    public TestModel jsonString() throws IOException {
+        return mapper.readValue(mapper.writeValueAsString(flatMapper.fromFlatMapper(flat)), TestModel.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FlatMapperBindBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.benchmark;
+
+import com.github.chenhao96.utils.mapper.Jackson2FlatMapperK;
+import com.github.chenhao96.utils.mapper.UpdateList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlatMapperUnflattenBenchmark {
+
+    @Param({"20", "200"})
+    private int keys;
+
+    private Map<String, Object> flat;
+    private Jackson2FlatMapperK flatMapper;
+
+    @Setup
+    public void setup() {
+        flatMapper = new Jackson2FlatMapperK();
+        flat = new LinkedHashMap<>();
+        // roughly a player payload: scalars, one nested profile, a list of items
+        int scalars = keys / 10;
+        int profile = keys / 10;
+        int items = (keys - scalars - profile) / 8;
+        for (int i = 0; i < scalars; i++) {
+            flat.put("field" + i, String.valueOf(i));
+        }
+        for (int i = 0; i < profile; i++) {
+            flat.put("profile.attr" + i, String.valueOf(i));
+        }
+        for (int i = 0; i < items; i++) {
+            for (int j = 0; j < 8; j++) {
+                flat.put("items[" + i + "].prop" + j, String.valueOf(j));
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> singlePass() {
+        return flatMapper.fromFlatMapper(flat);
+    }
+
+    @Benchmark
+    public Map<String, Object> prefixRescan() {
+        LinkedHashMap<String, Object> result = new LinkedHashMap<>();
+        PrefixRescan.unFlatten("", result, flat);
+        return result;
+    }
+
+    /**
+     * The previous algorithm, rescanning the whole flat map for every nested prefix.
+     */
+    @SuppressWarnings("unchecked")
+    private static final class PrefixRescan {
+
+        static void unFlatten(String prefix, Map<String, Object> result, Map<String, Object> target) {
+            for (Map.Entry<String, Object> entry : target.entrySet()) {
+                if (!entry.getKey().startsWith(prefix)) continue;
+                String key = entry.getKey().substring(prefix.length());
+                if (key.contains(".")) {
+                    String head = key.substring(0, key.indexOf('.'));
+                    Map<String, Object> child;
+                    if (head.contains("[")) {
+                        UpdateList<Object> list = list(result, head.substring(0, head.indexOf('[')));
+                        int index = Integer.parseInt(head.substring(head.indexOf('[') + 1, head.indexOf(']')));
+                        child = (Map<String, Object>) list.get(index);
+                        if (child == null) {
+                            child = new LinkedHashMap<>();
+                            list.put(index, child);
+                        }
+                    } else {
+                        child = (Map<String, Object>) result.computeIfAbsent(head, k -> new LinkedHashMap<>());
+                    }
+                    unFlatten(prefix + head + ".", child, target);
+                } else if (key.contains("[")) {
+                    UpdateList<Object> list = list(result, key.substring(0, key.indexOf('[')));
+                    list.put(Integer.parseInt(key.substring(key.indexOf('[') + 1, key.indexOf(']'))), entry.getValue());
+                } else {
+                    result.put(key, entry.getValue());
+                }
+            }
+        }
+
+        private static UpdateList<Object> list(Map<String, Object> result, String name) {
+            return (UpdateList<Object>) result.computeIfAbsent(name, k -> new UpdateList<>());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FlatMapperUnflattenBenchmark.class.getSimpleName()).build()).run();
+    }
+}
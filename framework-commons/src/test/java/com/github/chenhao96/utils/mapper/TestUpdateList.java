@@ -0,0 +1,147 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package com.github.chenhao96.utils.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TestUpdateList {
+
+    private static List<String> values(UpdateList<String> list) {
+        List<String> result = new ArrayList<>();
+        for (String value : list) result.add(value);
+        return result;
+    }
+
+    @Test
+    public void testIteratesInIndexOrder() {
+        UpdateList<String> list = new UpdateList<>();
+        list.put(3, "d");
+        list.put(0, "a");
+        list.put(2, "c");
+        list.put(1, "b");
+
+        Assert.assertEquals(4, list.size());
+        Assert.assertEquals(Arrays.asList("a", "b", "c", "d"), values(list));
+    }
+
+    @Test
+    public void testGapsAreSkipped() {
+        UpdateList<String> list = new UpdateList<>();
+        list.put(5, "f");
+        list.put(1, "b");
+
+        Assert.assertEquals(2, list.size());
+        Assert.assertNull(list.get(0));
+        Assert.assertNull(list.get(3));
+        Assert.assertEquals("f", list.get(5));
+        Assert.assertEquals(Arrays.asList("b", "f"), values(list));
+    }
+
+    @Test
+    public void testOverwriteKeepsSize() {
+        UpdateList<String> list = new UpdateList<>();
+        list.put(1, "b");
+        list.put(1, "B");
+        list.put(1000, "x");
+        list.put(1000, "X");
+
+        Assert.assertEquals(2, list.size());
+        Assert.assertEquals(Arrays.asList("B", "X"), values(list));
+    }
+
+    @Test
+    public void testOverflowMergedWhenArrayGrows() {
+        UpdateList<String> list = new UpdateList<>();
+        list.put(20, "u");
+        list.put(40, "w");
+        for (int i = 0; i < 30; i++) {
+            list.put(i, String.valueOf(i));
+        }
+
+        // 20 was sparse when it came and now lies inside the array, 40 may still be beyond it
+        Assert.assertEquals(31, list.size());
+        Assert.assertEquals("20", list.get(20));
+        Assert.assertEquals("w", list.get(40));
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 30; i++) expected.add(String.valueOf(i));
+        expected.add("w");
+        Assert.assertEquals(expected, values(list));
+
+        list.put(40, "W");
+        Assert.assertEquals(31, list.size());
+        Assert.assertEquals("W", list.get(40));
+    }
+
+    @Test
+    public void testMergedOverflowValueIsKept() {
+        UpdateList<String> list = new UpdateList<>();
+        list.put(0, "a");
+        list.put(12, "m");
+        for (int i = 1; i < 12; i++) {
+            list.put(i, "-");
+        }
+        list.put(13, "n");
+
+        Assert.assertEquals(14, list.size());
+        Assert.assertEquals("m", list.get(12));
+        Assert.assertEquals("n", values(list).get(13));
+        Assert.assertEquals("m", values(list).get(12));
+    }
+
+    @Test
+    public void testSparseAndNegativeIndices() {
+        UpdateList<String> list = new UpdateList<>();
+        list.put(Integer.MAX_VALUE, "max");
+        list.put(-1, "negative");
+        list.put(100000, "far");
+        list.put(0, "a");
+
+        // negative indices can be read back but are neither counted nor iterated
+        Assert.assertEquals(3, list.size());
+        Assert.assertEquals("negative", list.get(-1));
+        Assert.assertEquals("far", list.get(100000));
+        Assert.assertEquals(Arrays.asList("a", "far", "max"), values(list));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        UpdateList<String> list = new UpdateList<>();
+        Assert.assertEquals(0, list.size());
+        Assert.assertFalse(list.iterator().hasNext());
+        Assert.assertNull(list.get(0));
+        Assert.assertEquals("[]", new ObjectMapper().writeValueAsString(list));
+    }
+
+    @Test
+    public void testSerializesInIndexOrder() throws Exception {
+        UpdateList<String> list = new UpdateList<>();
+        list.put(70000, "z");
+        list.put(2, "c");
+        list.put(0, "a");
+
+        Assert.assertEquals("[\"a\",\"c\",\"z\"]", new ObjectMapper().writeValueAsString(list));
+        Assert.assertEquals("[a, c, z]", list.toString());
+    }
+}
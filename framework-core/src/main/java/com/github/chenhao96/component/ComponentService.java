@@ -28,5 +28,22 @@ public interface ComponentService {
 
     void start() throws Exception;
 
+    /**
+     * Stops taking new work (accepting connections, reading requests) while work already
+     * taken keeps running, called on every component before any of them is stopped.
+     */
+    default void suspend() throws Exception {
+    }
+
+    /**
+     * Waits until the work taken before {@link #suspend()} is done.
+     *
+     * @param deadline absolute time in {@link System#currentTimeMillis()} terms
+     * @return {@code false} if the deadline passed first
+     */
+    default boolean awaitDrained(long deadline) throws InterruptedException {
+        return true;
+    }
+
     void stop() throws Exception;
 }
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.executor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts work that has been accepted but not finished yet, so shutdown can wait for it
+ * instead of polling.
+ */
+public class InFlightCounter {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    public void increment() {
+        count.incrementAndGet();
+    }
+
+    public void decrement() {
+        for (; ; ) {
+            int current = count.get();
+            if (current == 0) return;
+            if (count.compareAndSet(current, current - 1)) {
+                if (current == 1) signalZero();
+                return;
+            }
+        }
+    }
+
+    public int get() {
+        return count.get();
+    }
+
+    /**
+     * Only the waiters of {@link #awaitZero(long)} take the monitor, a waiter holds it from its check until it waits.
+     */
+    private synchronized void signalZero() {
+        notifyAll();
+    }
+
+    /**
+     * @param deadline absolute time in {@link System#currentTimeMillis()} terms
+     * @return {@code true} once nothing is in flight, {@code false} if the deadline passed first
+     */
+    public synchronized boolean awaitZero(long deadline) throws InterruptedException {
+        while (count.get() > 0) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) return false;
+            wait(remaining);
+        }
+        return true;
+    }
+}
@@ -23,10 +23,18 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 //TODO：bug
 @Component
@@ -34,13 +42,18 @@ public class TaskExecutorComponent implements ComponentService, TaskExecutorServ
 
     private static final String COMPONENT_NAME = "TaskExecutorComponent";
     private static final Logger LOGGER = LoggerFactory.getLogger(TaskExecutorComponent.class);
+    private static final int MAILBOX_BATCH = 64;
 
     private int poolSize;
-    private boolean runnable;
+    private volatile boolean runnable;
     private boolean initialized = false;
     private boolean rebuildExecutor = false;
-    private ExecutorService handlerExecutor;
+    private ThreadPoolExecutor handlerExecutor;
+    private volatile Mailbox[] mailboxes;
     private ScheduledExecutorService scheduler;
+    private final InFlightCounter inFlight = new InFlightCounter();
+    private final AtomicInteger mailboxBacklog = new AtomicInteger();
+    private volatile long drainDeadline;
 
     @Autowired(required = false)
     private ConfigProperty configProperty;
@@ -87,42 +100,114 @@ public class TaskExecutorComponent implements ComponentService, TaskExecutorServ
 
         runnable = false;
         checkExecutor();
-        if (rebuildExecutor) {
+        if (rebuildExecutor || handlerExecutor == null || handlerExecutor.isShutdown()) {
             scheduler = Executors.newScheduledThreadPool(poolSize);
-            handlerExecutor = Executors.newFixedThreadPool(poolSize);
+            handlerExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
             rebuildExecutor = false;
         }
+        mailboxes = createMailboxes(poolSize);
 
         runnable = true;
     }
 
     private void checkExecutor() throws InterruptedException {
-        checkExecutorShutdown(handlerExecutor);
-        checkExecutorShutdown(scheduler);
+        // after a drain the executors only get what is left of its deadline, not a fresh timeout each
+        long deadline = drainDeadline > 0 ? drainDeadline : System.currentTimeMillis() + ConfigProperty.getShutdownDrainTimeout();
+        drainDeadline = 0;
+        checkExecutorShutdown(handlerExecutor, deadline);
+        checkExecutorShutdown(scheduler, deadline);
     }
 
-    private void checkExecutorShutdown(ExecutorService executor) throws InterruptedException {
+    private void checkExecutorShutdown(ExecutorService executor, long deadline) throws InterruptedException {
         if (executor != null) {
             if (!executor.isShutdown()) {
                 executor.shutdown();
-                while (!executor.isTerminated()) {
-                    Thread.sleep(1000);
+                long timeout = Math.max(0L, deadline - System.currentTimeMillis());
+                if (!executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+                    List<Runnable> dropped = executor.shutdownNow();
+                    LOGGER.warn("{} force shutdown, {} tasks dropped.", COMPONENT_NAME, dropped.size());
                 }
             }
         }
     }
 
+    @Override
+    public boolean awaitDrained(long deadline) throws InterruptedException {
+        drainDeadline = deadline;
+        return inFlight.awaitZero(deadline);
+    }
+
     @Override
     public void stop() throws Exception {
         if (!runnable) return;
-        checkExecutor();
         runnable = false;
+        checkExecutor();
     }
 
     @Override
     public void addHandler(Runnable task) {
-        if (!runnable) return;
-        handlerExecutor.submit(task);
+        checkRunnable();
+        inFlight.increment();
+        try {
+            handlerExecutor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("handler task fail.", e);
+                } finally {
+                    inFlight.decrement();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.decrement();
+            throw e;
+        }
+    }
+
+    @Override
+    public void addHandler(Object key, Runnable task) {
+        if (key == null) {
+            addHandler(task);
+            return;
+        }
+        checkRunnable();
+        Mailbox[] boxes = this.mailboxes;
+        int hash = key.hashCode();
+        inFlight.increment();
+        boxes[(hash ^ (hash >>> 16)) & (boxes.length - 1)].offer(task);
+    }
+
+    private void checkRunnable() {
+        if (!runnable) throw new RejectedExecutionException(COMPONENT_NAME + " is not running.");
+    }
+
+    private Mailbox[] createMailboxes(int poolSize) {
+        // a few stripes per thread keeps unrelated keys from queueing behind each other
+        int stripes = Integer.highestOneBit(Math.max(1, poolSize * 4 - 1)) << 1;
+        Mailbox[] result = new Mailbox[stripes];
+        for (int i = 0; i < stripes; i++) {
+            result[i] = new Mailbox();
+        }
+        return result;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Tasks waiting in the pool queue plus the keyed tasks still waiting in their mailboxes.
+     */
+    @Override
+    public int getQueueSize() {
+        ThreadPoolExecutor executor = handlerExecutor;
+        return (executor == null ? 0 : executor.getQueue().size()) + mailboxBacklog.get();
+    }
+
+    @Override
+    public int getActiveCount() {
+        ThreadPoolExecutor executor = handlerExecutor;
+        return executor == null ? 0 : executor.getActiveCount();
     }
 
     @Override
@@ -146,4 +231,67 @@ public class TaskExecutorComponent implements ComponentService, TaskExecutorServ
         if (!runnable) return;
         scheduler.scheduleAtFixedRate(task, initialDelay, period, unit);
     }
+
+    /**
+     * Runs the tasks of every key striped onto it one after another, on one pool thread at a time.
+     */
+    private final class Mailbox implements Runnable {
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void offer(Runnable task) {
+            mailboxBacklog.incrementAndGet();
+            tasks.offer(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) return;
+            try {
+                handlerExecutor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // the tasks are already counted and may hold messages, so they run here rather than vanish
+                LOGGER.warn("{} rejected mailbox, its tasks run on the calling thread.", COMPONENT_NAME);
+                runAll();
+            }
+        }
+
+        private void runAll() {
+            try {
+                for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+                    runTask(task);
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            if (!tasks.isEmpty()) schedule();
+        }
+
+        private void runTask(Runnable task) {
+            mailboxBacklog.decrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.warn("handler task fail.", e);
+            } finally {
+                inFlight.decrement();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < MAILBOX_BATCH; i++) {
+                    Runnable task = tasks.poll();
+                    if (task == null) break;
+                    runTask(task);
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // yield the thread after a batch, the remaining tasks go to the back of the pool queue
+            if (!tasks.isEmpty()) schedule();
+        }
+    }
 }
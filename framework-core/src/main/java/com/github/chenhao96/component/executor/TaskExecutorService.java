@@ -20,8 +20,23 @@ import java.util.concurrent.TimeUnit;
 
 public interface TaskExecutorService {
 
+    /**
+     * @throws java.util.concurrent.RejectedExecutionException when the task is not accepted, the caller
+     *                                                         still owns whatever the task holds
+     */
     void addHandler(Runnable task);
 
+    /**
+     * Tasks with equal keys run one at a time in submission order, other keys still run in parallel.
+     * A {@code null} key is the same as {@link #addHandler(Runnable)}. Implementations without per-key
+     * ordering fall back to {@link #addHandler(Runnable)}.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException when the task is not accepted
+     */
+    default void addHandler(Object key, Runnable task) {
+        addHandler(task);
+    }
+
     void addHandlerDelay(Runnable task, long delay, TimeUnit unit);
 
     void addHandlerDelay(Runnable task, long initialDelay, long delay, TimeUnit unit);
@@ -29,4 +44,18 @@ public interface TaskExecutorService {
     void addHandlerRate(Runnable task, long period, TimeUnit unit);
 
     void addHandlerRate(Runnable task, long initialDelay, long period, TimeUnit unit);
+
+    /**
+     * Tasks accepted but not started yet, 0 when the implementation does not track it.
+     */
+    default int getQueueSize() {
+        return 0;
+    }
+
+    /**
+     * Tasks running right now, 0 when the implementation does not track it.
+     */
+    default int getActiveCount() {
+        return 0;
+    }
 }
@@ -17,6 +17,7 @@
 package com.github.chenhao96.component.manager;
 
 import com.github.chenhao96.component.ComponentService;
+import com.github.chenhao96.model.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -126,6 +127,7 @@ public class ComponentManagerBean implements ComponentManager {
         LOGGER.info("shutdown beginning...");
 
         if (!CollectionUtils.isEmpty(componentServiceList)) {
+            drain();
             componentServiceList.stream().filter(service -> service != null).forEach(service -> {
                 try {
                     if (service.started()) {
@@ -145,4 +147,29 @@ public class ComponentManagerBean implements ComponentManager {
             LOGGER.info("shutdown finish.");
         }
     }
+
+    private void drain() {
+
+        componentServiceList.stream().filter(service -> service != null && service.started()).forEach(service -> {
+            try {
+                service.suspend();
+            } catch (Exception e) {
+                LOGGER.warn("{} suspend exception!", service.getComponentName(), e);
+            }
+        });
+
+        long deadline = System.currentTimeMillis() + ConfigProperty.getShutdownDrainTimeout();
+        for (ComponentService service : componentServiceList) {
+            if (service == null || !service.started()) continue;
+            try {
+                if (!service.awaitDrained(deadline)) {
+                    LOGGER.warn("{} is not drained before the deadline, force stop.", service.getComponentName());
+                }
+            } catch (InterruptedException e) {
+                LOGGER.warn("{} drain interrupted.", service.getComponentName());
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
 }
@@ -0,0 +1,184 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chenhao96.component.net;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.chenhao96.component.process.ProcessInvokeService;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binds the message data straight to the handler arguments, without the intermediate flat map.
+ * The data is either an object keyed by parameter name or an array in parameter order,
+ * its format follows the given {@link ObjectMapper}, e.g. a Smile or CBOR mapper for binary payloads.
+ */
+public class BinaryMessageConvertToHandlerArgs extends DefaultMessageConvertToHandlerArgs implements TypedMessageConvertToHandlerArgs {
+
+    private final ObjectMapper mapper;
+    private final Map<ProcessInvokeService, ArgumentsReader> argumentsReaders = new ConcurrentHashMap<>();
+
+    public BinaryMessageConvertToHandlerArgs() {
+        this(defaultObjectMapper());
+    }
+
+    public BinaryMessageConvertToHandlerArgs(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    private static ObjectMapper defaultObjectMapper() {
+        ObjectMapper result = new ObjectMapper();
+        result.configure(JsonParser.Feature.ALLOW_SINGLE_QUOTES, true);
+        result.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        result.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return result;
+    }
+
+    @Override
+    public Object[] convertArgs(ProcessInvokeService invokeService) {
+        CommonsMessage message = getCommonsMessage();
+        if (message == null) return null;
+        ArgumentsReader argumentsReader = argumentsReaders.get(invokeService);
+        if (argumentsReader == null) argumentsReader = prepareReader(invokeService);
+        try (JsonParser parser = createParser(message)) {
+            return argumentsReader.read(parser);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Override
+    public void prepare(ProcessInvokeService invokeService) {
+        prepareReader(invokeService);
+    }
+
+    /**
+     * Handlers registered after {@link #prepare} ran, or converters the handler factory does not know,
+     * get their reader on the first request.
+     */
+    private ArgumentsReader prepareReader(ProcessInvokeService invokeService) {
+        ArgumentsReader argumentsReader = new ArgumentsReader(invokeService);
+        ArgumentsReader exist = argumentsReaders.putIfAbsent(invokeService, argumentsReader);
+        return exist == null ? argumentsReader : exist;
+    }
+
+    @Override
+    public Map<String, Object> convertArgs() {
+        CommonsMessage message = getCommonsMessage();
+        if (message == null) return null;
+        try (JsonParser parser = createParser(message)) {
+            return object2FlatMapper.toFlatMapper(parser);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Override
+    public CommonsMessage convertMessageReturn(Object obj) {
+        CommonsMessage message = getCommonsMessage(true);
+        message.setData(null);
+        if (obj != null) {
+            try {
+                message.setData(mapper.writeValueAsBytes(obj));
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+        return message;
+    }
+
+    private JsonParser createParser(CommonsMessage message) throws IOException {
+        ByteBuf dataBuffer = message.getDataBuffer();
+        if (dataBuffer == null) {
+            byte[] data = message.getData();
+            return mapper.getFactory().createParser(data == null ? new byte[0] : data);
+        }
+        if (dataBuffer.hasArray()) {
+            return mapper.getFactory().createParser(dataBuffer.array(),
+                    dataBuffer.arrayOffset() + dataBuffer.readerIndex(), dataBuffer.readableBytes());
+        }
+        return mapper.getFactory().createParser(new ByteBufInputStream(dataBuffer.duplicate()));
+    }
+
+    private class ArgumentsReader {
+
+        private final String name;
+        private final boolean[] primitives;
+        private final ObjectReader[] readers;
+        private final Map<String, Integer> indexes;
+
+        ArgumentsReader(ProcessInvokeService invokeService) {
+            String[] parameterNames = invokeService.getParameterNames();
+            Type[] parameterTypes = invokeService.getParameterTypes();
+            this.name = invokeService.toString();
+            this.primitives = new boolean[parameterTypes.length];
+            this.readers = new ObjectReader[parameterTypes.length];
+            this.indexes = new HashMap<>(parameterTypes.length * 2);
+            for (int i = 0; i < parameterTypes.length; i++) {
+                this.primitives[i] = parameterTypes[i] instanceof Class && ((Class<?>) parameterTypes[i]).isPrimitive();
+                this.readers[i] = mapper.readerFor(mapper.getTypeFactory().constructType(parameterTypes[i]));
+                if (parameterNames[i] != null) this.indexes.put(parameterNames[i], i);
+            }
+        }
+
+        Object[] read(JsonParser parser) throws IOException {
+            Object[] args = new Object[readers.length];
+            boolean[] resolved = new boolean[readers.length];
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    Integer index = indexes.get(parser.getCurrentName());
+                    parser.nextToken();
+                    if (index == null) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    args[index] = readers[index].readValue(parser);
+                    resolved[index] = true;
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                int index = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (index < readers.length) {
+                        args[index] = readers[index].readValue(parser);
+                        resolved[index++] = true;
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if (token != null) {
+                throw new IllegalArgumentException("message data must be an object or an array, but was " + token);
+            }
+
+            for (int i = 0; i < primitives.length; i++) {
+                if (primitives[i] && (!resolved[i] || args[i] == null)) {
+                    throw new IllegalStateException(String.format("Could not resolve method parameter at index %d in %s", i, name));
+                }
+            }
+            return args;
+        }
+    }
+}
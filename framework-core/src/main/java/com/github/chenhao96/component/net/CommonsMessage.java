@@ -16,7 +16,10 @@
 
 package com.github.chenhao96.component.net;
 
+import com.github.chenhao96.component.net.checksum.FrameChecksum;
+import com.github.chenhao96.component.net.checksum.FrameChecksums;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import org.springframework.util.Assert;
 
 import java.io.DataInputStream;
@@ -31,8 +34,25 @@ public final class CommonsMessage {
     public static final String SLAVE_CODE_NAME = "slaveCode";
     public static final String MASTER_CODE_NAME = "masterCode";
 
+    public static final byte CONTROL_MASTER_CODE = 0;
+    public static final byte HEARTBEAT_SLAVE_CODE = 0;
+    public static final byte HANDSHAKE_SLAVE_CODE = 1;
+    public static final byte ENVELOPE_SLAVE_CODE = 2;
+
     private static final Short BODY_HEAD = 9962;
     public static final int MIN_DATA_LENGTH = Short.BYTES + Byte.BYTES * 2 + Integer.BYTES;
+    public static final int HEAD_LENGTH = Short.BYTES + Integer.BYTES;
+
+    public static final int COMPRESSED_FLAG = 0x80000000;
+    public static final int REQUEST_ID_FLAG = 0x40000000;
+    public static final int LENGTH_MASK = 0x3FFFFFFF;
+
+    /**
+     * Request ID {@code 0} means the frame carries none, so it is written without the request ID field.
+     */
+    public static final int NO_REQUEST_ID = 0;
+
+    private static final byte[] EMPTY_DATA = new byte[0];
 
     private byte masterCode;
 
@@ -40,6 +60,12 @@ public final class CommonsMessage {
 
     private byte[] data;
 
+    private ByteBuf dataBuffer;
+
+    private boolean compressed;
+
+    private int requestId = NO_REQUEST_ID;
+
     public CommonsMessage() {
     }
 
@@ -54,6 +80,16 @@ public final class CommonsMessage {
         this.data = data;
     }
 
+    /**
+     * The message takes over the reference of {@code dataBuffer},
+     * it must be given back by {@link #release()} once the message is handled.
+     */
+    public CommonsMessage(byte masterCode, byte slaveCode, ByteBuf dataBuffer) {
+        this.masterCode = masterCode;
+        this.slaveCode = slaveCode;
+        this.dataBuffer = dataBuffer;
+    }
+
     public byte getMasterCode() {
         return masterCode;
     }
@@ -71,73 +107,187 @@ public final class CommonsMessage {
     }
 
     public void setData(byte[] data) {
+        release();
         this.data = data;
     }
 
     public byte[] getData() {
+        if (data == null && dataBuffer != null) {
+            data = ByteBufUtil.getBytes(dataBuffer);
+        }
         return data;
     }
 
-    private static short calcCheckSum(int start, int size, byte[] data) {
+    public boolean isCompressed() {
+        return compressed;
+    }
 
-        Assert.isTrue((size + start) <= data.length, "data index out of length!");
-        short result = 996;
-        for (int i = start; i < size + start; i++) {
-            result |= data[i] & 138;
-        }
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    public int getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(int requestId) {
+        this.requestId = requestId;
+    }
+
+    public boolean hasRequestId() {
+        return requestId != NO_REQUEST_ID;
+    }
+
+    public ByteBuf getDataBuffer() {
+        return dataBuffer;
+    }
+
+    public int getDataLength() {
+        if (dataBuffer != null) return dataBuffer.readableBytes();
+        return data == null ? 0 : data.length;
+    }
+
+    public boolean release() {
+        if (dataBuffer == null) return false;
+        ByteBuf buffer = dataBuffer;
+        dataBuffer = null;
+        return buffer.release();
+    }
+
+    public static boolean isBodyHead(short bodyHead) {
+        return bodyHead == BODY_HEAD;
+    }
+
+    public static int dataLength(int lengthField) {
+        return lengthField & LENGTH_MASK;
+    }
 
-        return (short) (result & 7788);
+    public static int requestIdLength(int lengthField) {
+        return (lengthField & REQUEST_ID_FLAG) != 0 ? Integer.BYTES : 0;
+    }
+
+    public static long frameLength(int lengthField) {
+        int length = dataLength(lengthField);
+        long result = MIN_DATA_LENGTH + requestIdLength(lengthField);
+        if (length > 0) {
+            result += Short.BYTES + length;
+        }
+        return result;
     }
 
     public static CommonsMessage createMessageByData(DataInputStream dataInputStream) throws IOException {
+        return createMessageByData(dataInputStream, FrameChecksums.LEGACY);
+    }
+
+    public static CommonsMessage createMessageByData(DataInputStream dataInputStream, FrameChecksum checksum) throws IOException {
 
         short bodyHead = dataInputStream.readShort();
         Assert.isTrue(bodyHead == BODY_HEAD, "byteBuf bodyHead is fail!");
-        int length = dataInputStream.readInt();
+        int lengthField = dataInputStream.readInt();
+        int length = dataLength(lengthField);
+        int requestIdLength = requestIdLength(lengthField);
 
         short checkCode = 0;
         if (length > 0) {
             checkCode = dataInputStream.readShort();
         }
 
-        byte[] buf = new byte[length + 2];
+        byte[] buf = new byte[requestIdLength + length + 2];
         dataInputStream.readFully(buf);
         if (length > 0) {
-            Assert.isTrue(checkCode == calcCheckSum(0, buf.length, buf), "byteBuf checkCode is not equals!");
+            Assert.isTrue(checkCode == checksum.calc(buf, 0, buf.length), "byteBuf checkCode is not equals!");
         }
 
-        return new CommonsMessage(buf[0], buf[1], Arrays.copyOfRange(buf, 2, buf.length));
+        CommonsMessage result = new CommonsMessage(buf[requestIdLength], buf[requestIdLength + 1],
+                Arrays.copyOfRange(buf, requestIdLength + 2, buf.length));
+        result.compressed = (lengthField & COMPRESSED_FLAG) != 0;
+        if (requestIdLength > 0) {
+            result.requestId = ByteBuffer.wrap(buf, 0, Integer.BYTES).getInt();
+        }
+        return result;
     }
 
     public static CommonsMessage createMessageByByteBuf(ByteBuf byteBuf) {
+        return createMessageByByteBuf(byteBuf, FrameChecksums.LEGACY);
+    }
+
+    public static CommonsMessage createMessageByByteBuf(ByteBuf byteBuf, FrameChecksum checksum) {
 
         short bodyHead = byteBuf.readShort();
         Assert.isTrue(bodyHead == BODY_HEAD, "byteBuf bodyHead is fail!");
-        int length = byteBuf.readInt();
+        int lengthField = byteBuf.readInt();
+        int length = dataLength(lengthField);
+        int requestIdLength = requestIdLength(lengthField);
 
-        short checkCode = 0;
         if (length > 0) {
-            checkCode = byteBuf.readShort();
+            short checkCode = byteBuf.readShort();
+            Assert.isTrue(byteBuf.readableBytes() >= requestIdLength + length + 2, "data index out of length!");
+            Assert.isTrue(checkCode == checksum.calc(byteBuf, byteBuf.readerIndex(), requestIdLength + length + 2), "byteBuf checkCode is not equals!");
         }
 
-        byte[] buf = new byte[length + 2];
-        byteBuf.readBytes(buf);
+        int requestId = requestIdLength > 0 ? byteBuf.readInt() : NO_REQUEST_ID;
+        byte masterCode = byteBuf.readByte();
+        byte slaveCode = byteBuf.readByte();
+        CommonsMessage result;
         if (length > 0) {
-            Assert.isTrue(checkCode == calcCheckSum(0, buf.length, buf), "byteBuf checkCode is not equals!");
+            result = new CommonsMessage(masterCode, slaveCode, byteBuf.readRetainedSlice(length));
+            result.compressed = (lengthField & COMPRESSED_FLAG) != 0;
+        } else {
+            result = new CommonsMessage(masterCode, slaveCode, EMPTY_DATA);
         }
+        result.requestId = requestId;
+        return result;
+    }
 
-        return new CommonsMessage(buf[0], buf[1], Arrays.copyOfRange(buf, 2, buf.length));
+    public static void writeMessage(CommonsMessage message, ByteBuf byteBuf) {
+        writeMessage(message, byteBuf, FrameChecksums.LEGACY);
+    }
+
+    public static void writeMessage(CommonsMessage message, ByteBuf byteBuf, FrameChecksum checksum) {
+
+        int length = message.getDataLength();
+        int lengthField = lengthField(message, length);
+        byteBuf.ensureWritable((int) frameLength(lengthField));
+        byteBuf.writeShort(BODY_HEAD).writeInt(lengthField);
+        if (length > 0) {
+            int checkIndex = byteBuf.writerIndex();
+            byteBuf.writeShort(0);
+            int offsetIndex = byteBuf.writerIndex();
+            if (message.hasRequestId()) byteBuf.writeInt(message.requestId);
+            byteBuf.writeByte(message.masterCode).writeByte(message.slaveCode);
+            if (message.dataBuffer != null) {
+                byteBuf.writeBytes(message.dataBuffer, message.dataBuffer.readerIndex(), length);
+            } else {
+                byteBuf.writeBytes(message.data);
+            }
+            byteBuf.setShort(checkIndex, checksum.calc(byteBuf, offsetIndex, byteBuf.writerIndex() - offsetIndex));
+        } else {
+            if (message.hasRequestId()) byteBuf.writeInt(message.requestId);
+            byteBuf.writeByte(message.masterCode).writeByte(message.slaveCode);
+        }
     }
 
     public static byte[] createByteByMessage(CommonsMessage message) {
-        return createByteBufByMessage(message).array();
+        return createByteByMessage(message, FrameChecksums.LEGACY);
+    }
+
+    public static byte[] createByteByMessage(CommonsMessage message, FrameChecksum checksum) {
+        return createByteBufByMessage(message, checksum).array();
     }
 
     public static ByteBuffer createByteBufByMessage(CommonsMessage message) {
+        return createByteBufByMessage(message, FrameChecksums.LEGACY);
+    }
 
-        int length = message.data == null ? 0 : message.data.length;
+    public static ByteBuffer createByteBufByMessage(CommonsMessage message, FrameChecksum checksum) {
+
+        int length = message.getDataLength();
         //数据头
         int allocateLength = Short.BYTES;
+        if (message.hasRequestId()) {
+            //请求编号
+            allocateLength += Integer.BYTES;
+        }
         if (length > 0) {
             //校验码
             allocateLength += Short.BYTES;
@@ -150,30 +300,44 @@ public final class CommonsMessage {
         allocateLength += Integer.BYTES;
 
         ByteBuffer result = ByteBuffer.allocate(allocateLength);
-        result = createMessageBuffer(message, length, result);
+        result = createMessageBuffer(message, length, result, checksum);
         result.flip();
 
         return result;
     }
 
-    private static ByteBuffer createMessageBuffer(CommonsMessage message, int length, ByteBuffer result) {
-        result.putShort(BODY_HEAD).putInt(length);
+    private static int lengthField(CommonsMessage message, int length) {
+        Assert.isTrue(length <= LENGTH_MASK, "data length out of range!");
+        int result = length;
+        if (message.compressed && length > 0) {
+            result |= COMPRESSED_FLAG;
+        }
+        if (message.hasRequestId()) {
+            result |= REQUEST_ID_FLAG;
+        }
+        return result;
+    }
+
+    private static ByteBuffer createMessageBuffer(CommonsMessage message, int length, ByteBuffer result, FrameChecksum checksum) {
+        result.putShort(BODY_HEAD).putInt(lengthField(message, length));
         if (length > 0) {
             int offsetPosition = result.position() + Short.BYTES;
             result.position(offsetPosition);
+            if (message.hasRequestId()) result.putInt(message.requestId);
             result.put(message.masterCode).put(message.slaveCode);
-            result.put(message.data);
-            return putCheckShort(result, length, offsetPosition);
+            result.put(message.getData());
+            return putCheckShort(result, result.position() - offsetPosition - Byte.BYTES * 2, offsetPosition, checksum);
         } else {
+            if (message.hasRequestId()) result.putInt(message.requestId);
             return result.put(message.masterCode).put(message.slaveCode);
         }
     }
 
-    private static ByteBuffer putCheckShort(ByteBuffer result, int length, int offsetPosition) {
+    private static ByteBuffer putCheckShort(ByteBuffer result, int length, int offsetPosition, FrameChecksum checksum) {
 
         int currentPosition = result.position();
         result.position(offsetPosition - Short.BYTES);
-        result.putShort(calcCheckSum(offsetPosition, length + Byte.BYTES * 2, result.array()));
+        result.putShort(checksum.calc(result.array(), offsetPosition, length + Byte.BYTES * 2));
         result.position(currentPosition);
 
         return result;
@@ -184,7 +348,9 @@ public final class CommonsMessage {
         final StringBuilder sb = new StringBuilder("CommonsMessage{");
         sb.append("masterCode=").append(masterCode);
         sb.append(", slaveCode=").append(slaveCode);
-        sb.append(", data=").append(Arrays.toString(data));
+        sb.append(", requestId=").append(requestId);
+        sb.append(", compressed=").append(compressed);
+        sb.append(", data=").append(Arrays.toString(getData()));
         sb.append('}');
         return sb.toString();
     }
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chenhao96.component.net;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A (0, 2) control frame carrying several messages, each one as {@code [masterCode][slaveCode][length][requestId][data]},
+ * the request ID is only present when {@link CommonsMessage#REQUEST_ID_FLAG} is set in the length.
+ */
+public final class CommonsMessageEnvelope {
+
+    public static final int ENTRY_HEAD_LENGTH = Byte.BYTES * 2 + Integer.BYTES;
+
+    private CommonsMessageEnvelope() {
+    }
+
+    public static boolean isEnvelope(CommonsMessage message) {
+        return message != null && message.getMasterCode() == CommonsMessage.CONTROL_MASTER_CODE
+                && message.getSlaveCode() == CommonsMessage.ENVELOPE_SLAVE_CODE;
+    }
+
+    /**
+     * The returned messages hold retained slices of the envelope data, the envelope itself
+     * still has to be released by the caller.
+     */
+    public static List<CommonsMessage> unpack(CommonsMessage envelope) {
+
+        ByteBuf dataBuffer = envelope.getDataBuffer();
+        boolean wrapped = dataBuffer == null;
+        if (wrapped) {
+            byte[] data = envelope.getData();
+            if (data == null || data.length == 0) return Collections.emptyList();
+            dataBuffer = Unpooled.wrappedBuffer(data);
+        } else {
+            dataBuffer = dataBuffer.duplicate();
+        }
+
+        List<CommonsMessage> result = new ArrayList<>();
+        try {
+            while (dataBuffer.isReadable()) {
+                Assert.isTrue(dataBuffer.readableBytes() >= ENTRY_HEAD_LENGTH, "envelope entry head is incomplete!");
+                byte masterCode = dataBuffer.readByte();
+                byte slaveCode = dataBuffer.readByte();
+                int lengthField = dataBuffer.readInt();
+                int length = CommonsMessage.dataLength(lengthField);
+                int requestIdLength = CommonsMessage.requestIdLength(lengthField);
+                Assert.isTrue(lengthField >= 0 && requestIdLength + length <= dataBuffer.readableBytes(), "envelope entry length is fail!");
+                int requestId = requestIdLength > 0 ? dataBuffer.readInt() : CommonsMessage.NO_REQUEST_ID;
+                CommonsMessage message = new CommonsMessage(masterCode, slaveCode, dataBuffer.readRetainedSlice(length));
+                message.setRequestId(requestId);
+                result.add(message);
+            }
+        } catch (IllegalArgumentException e) {
+            for (CommonsMessage message : result) {
+                message.release();
+            }
+            throw e;
+        } finally {
+            if (wrapped) dataBuffer.release();
+        }
+        return result;
+    }
+
+    public static CommonsMessage pack(List<CommonsMessage> messages) {
+
+        int allocateLength = 0;
+        for (CommonsMessage message : messages) {
+            allocateLength += ENTRY_HEAD_LENGTH + message.getDataLength();
+            if (message.hasRequestId()) allocateLength += Integer.BYTES;
+        }
+
+        ByteBuffer result = ByteBuffer.allocate(allocateLength);
+        for (CommonsMessage message : messages) {
+            result.put(message.getMasterCode()).put(message.getSlaveCode());
+            if (message.hasRequestId()) {
+                result.putInt(message.getDataLength() | CommonsMessage.REQUEST_ID_FLAG).putInt(message.getRequestId());
+            } else {
+                result.putInt(message.getDataLength());
+            }
+            ByteBuf dataBuffer = message.getDataBuffer();
+            if (dataBuffer != null) {
+                dataBuffer.getBytes(dataBuffer.readerIndex(), result.array(), result.position(), dataBuffer.readableBytes());
+                result.position(result.position() + dataBuffer.readableBytes());
+            } else if (message.getData() != null) {
+                result.put(message.getData());
+            }
+        }
+
+        return new CommonsMessage(CommonsMessage.CONTROL_MASTER_CODE, CommonsMessage.ENVELOPE_SLAVE_CODE, result.array());
+    }
+}
@@ -18,6 +18,7 @@ package com.github.chenhao96.component.net;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.List;
 import java.util.Set;
 
 public interface ConnectionContext extends Closeable {
@@ -28,6 +29,13 @@ public interface ConnectionContext extends Closeable {
 
     void sendMessage(CommonsMessage message);
 
+    default void sendMessages(List<CommonsMessage> messages) {
+        if (messages == null) return;
+        for (CommonsMessage message : messages) {
+            sendMessage(message);
+        }
+    }
+
     void addCloseProcess(ConnectionCloseProcess process);
 
     void sendMessage(Object message);
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chenhao96.component.net;
+
+import com.github.chenhao96.component.net.checksum.FrameChecksum;
+import com.github.chenhao96.component.net.checksum.FrameChecksums;
+import com.github.chenhao96.component.net.compress.FrameCompressor;
+import com.github.chenhao96.component.net.compress.FrameCompressors;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Per connection negotiation carried by a (0, 1) control frame.
+ * <p>
+ * The client offers every option as {@code [option][count][value...]} with its values in preference order,
+ * the server answers with the same layout holding the chosen value of each option it understood.
+ * Both sides switch to the negotiated settings right after the answer, the handshake frames themselves
+ * use the defaults, so clients that never send a handshake keep the legacy behavior.
+ */
+public final class ConnectionHandshake {
+
+    public static final byte CHECKSUM_OPTION = 1;
+    public static final byte COMPRESSION_OPTION = 2;
+
+    private FrameChecksum checksum = FrameChecksums.LEGACY;
+    private FrameCompressor compressor;
+    private boolean compressionOffered;
+
+    public FrameChecksum getChecksum() {
+        return checksum;
+    }
+
+    public FrameCompressor getCompressor() {
+        return compressor;
+    }
+
+    public static boolean isHandshake(CommonsMessage message) {
+        return message != null && message.getMasterCode() == CommonsMessage.CONTROL_MASTER_CODE
+                && message.getSlaveCode() == CommonsMessage.HANDSHAKE_SLAVE_CODE;
+    }
+
+    public static CommonsMessage createOffer(FrameChecksum... checksums) {
+        return createOffer(checksums, null);
+    }
+
+    public static CommonsMessage createOffer(FrameChecksum[] checksums, FrameCompressor[] compressors) {
+        ByteArrayOutputStream offer = new ByteArrayOutputStream();
+        if (checksums != null && checksums.length > 0) {
+            offer.write(CHECKSUM_OPTION);
+            offer.write(checksums.length);
+            for (FrameChecksum checksum : checksums) {
+                offer.write(checksum.getType());
+            }
+        }
+        if (compressors != null && compressors.length > 0) {
+            offer.write(COMPRESSION_OPTION);
+            offer.write(compressors.length);
+            for (FrameCompressor compressor : compressors) {
+                offer.write(FrameCompressors.getType(compressor));
+            }
+        }
+        return new CommonsMessage(CommonsMessage.CONTROL_MASTER_CODE, CommonsMessage.HANDSHAKE_SLAVE_CODE, offer.toByteArray());
+    }
+
+    public static ConnectionHandshake negotiate(CommonsMessage offer) {
+        ConnectionHandshake result = new ConnectionHandshake();
+        byte[] data = offer.getData();
+        int index = 0;
+        while (data != null && index + 1 < data.length) {
+            byte option = data[index];
+            int count = data[index + 1] & 0xFF;
+            int offset = index + 2;
+            if (offset + count > data.length) break;
+            if (option == CHECKSUM_OPTION) {
+                result.checksum = FrameChecksums.negotiate(data, offset, count);
+            } else if (option == COMPRESSION_OPTION) {
+                result.compressor = FrameCompressors.negotiate(data, offset, count);
+                result.compressionOffered = true;
+            }
+            index = offset + count;
+        }
+        return result;
+    }
+
+    public static ConnectionHandshake accept(CommonsMessage reply) {
+        return negotiate(reply);
+    }
+
+    public CommonsMessage createReply() {
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        reply.write(CHECKSUM_OPTION);
+        reply.write(1);
+        reply.write(checksum.getType());
+        if (compressionOffered) {
+            reply.write(COMPRESSION_OPTION);
+            reply.write(1);
+            reply.write(FrameCompressors.getType(compressor));
+        }
+        return new CommonsMessage(CommonsMessage.CONTROL_MASTER_CODE, CommonsMessage.HANDSHAKE_SLAVE_CODE, reply.toByteArray());
+    }
+}
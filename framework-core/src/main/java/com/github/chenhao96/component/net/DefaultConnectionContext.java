@@ -18,6 +18,7 @@ package com.github.chenhao96.component.net;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -28,6 +29,16 @@ public abstract class DefaultConnectionContext implements ConnectionContext {
     private Map<String, Object> cacheMap = new HashMap<>();
     private ReadWriteLock lock = new ReentrantReadWriteLock();
 
+    @Override
+    public void sendMessages(List<CommonsMessage> messages) {
+        if (messages == null || messages.isEmpty()) return;
+        if (messages.size() == 1) {
+            sendMessage(messages.get(0));
+        } else {
+            sendMessage(CommonsMessageEnvelope.pack(messages));
+        }
+    }
+
     @Override
     public void setAttribute(String name, Object obj) {
         lock.writeLock().lock();
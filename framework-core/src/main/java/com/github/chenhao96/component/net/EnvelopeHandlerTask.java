@@ -0,0 +1,65 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chenhao96.component.net;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EnvelopeHandlerTask implements Runnable, SerialTask, ReleasableTask {
+
+    private List<SocketHandlerTask> tasks = new ArrayList<>();
+
+    private ConnectionContext connectionContext;
+
+    public EnvelopeHandlerTask(ConnectionContext connectionContext) {
+        this.connectionContext = connectionContext;
+    }
+
+    public void addTask(SocketHandlerTask task) {
+        tasks.add(task);
+    }
+
+    public boolean isEmpty() {
+        return tasks.isEmpty();
+    }
+
+    @Override
+    public Object getSerialKey() {
+        for (SocketHandlerTask task : tasks) {
+            if (task.getSerialKey() != null) return connectionContext;
+        }
+        return null;
+    }
+
+    @Override
+    public void release() {
+        for (SocketHandlerTask task : tasks) {
+            task.release();
+        }
+    }
+
+    @Override
+    public void run() {
+        List<CommonsMessage> responses = new ArrayList<>(tasks.size());
+        for (SocketHandlerTask task : tasks) {
+            task.setResponses(responses);
+            task.run();
+        }
+        if (!responses.isEmpty() && !connectionContext.isClose()) {
+            connectionContext.sendMessages(responses);
+        }
+    }
+}
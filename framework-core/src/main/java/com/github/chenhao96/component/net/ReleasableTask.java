@@ -0,0 +1,31 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package com.github.chenhao96.component.net;
+
+/**
+ * A handler task holding messages that have to be released when it is dropped instead of run.
+ */
+public interface ReleasableTask {
+
+    void release();
+
+    static void releaseIfNeeded(Runnable task) {
+        if (task instanceof ReleasableTask) ((ReleasableTask) task).release();
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.net;
+
+/**
+ * A handler task that has to run serialized with the other tasks of the same key.
+ */
+public interface SerialTask {
+
+    /**
+     * @return the key to serialize on, {@code null} when the task may run in parallel with anything
+     */
+    Object getSerialKey();
+
+    static Object keyOf(Runnable task) {
+        return task instanceof SerialTask ? ((SerialTask) task).getSerialKey() : null;
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.github.chenhao96.component.net;
 
+import com.github.chenhao96.component.process.AsyncHandler;
 import com.github.chenhao96.component.process.ProcessInvokeService;
 import com.github.chenhao96.utils.CommonsUtil;
 import org.slf4j.Logger;
@@ -23,9 +24,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
 import java.net.SocketException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
-public class SocketHandlerTask implements Runnable {
+public class SocketHandlerTask implements Runnable, SerialTask, ReleasableTask {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SocketHandlerTask.class);
 
@@ -37,6 +40,8 @@ public class SocketHandlerTask implements Runnable {
 
     private MessageConvertToHandlerArgs messageConvertToHandlerArgs;
 
+    private List<CommonsMessage> responses;
+
     public SocketHandlerTask(CommonsMessage request) {
         this.request = request;
     }
@@ -57,25 +62,57 @@ public class SocketHandlerTask implements Runnable {
         this.messageConvertToHandlerArgs = messageConvertToHandlerArgs;
     }
 
+    public void setResponses(List<CommonsMessage> responses) {
+        this.responses = responses;
+    }
+
+    @Override
+    public Object getSerialKey() {
+        if (invokeService == null || !AsyncHandler.CONNECTION.equals(invokeService.getSerialKey())) return null;
+        return connectionContext;
+    }
+
+    @Override
+    public void release() {
+        request.release();
+    }
+
     @Override
     public void run() {
         Assert.notNull(request, "request body is required!");
         Assert.notNull(messageConvertToHandlerArgs, "MessageConvertToHandlerArgs is required!");
         messageConvertToHandlerArgs.setCommonsMessage(request);
         SocketConnectionUtil.setChannelHandlerContext(connectionContext);
-        final Map<String, Object> param = messageConvertToHandlerArgs.convertArgs();
-        LOGGER.info("request masterCode:{},slaveCode:{},param:{}", request.getMasterCode(), request.getSlaveCode(), param);
+        Object param = null;
         try {
-            Object returnValue = invokeService.invokeProcess(param);
+            Object returnValue;
+            if (messageConvertToHandlerArgs instanceof TypedMessageConvertToHandlerArgs) {
+                Object[] args = ((TypedMessageConvertToHandlerArgs) messageConvertToHandlerArgs).convertArgs(invokeService);
+                param = args;
+                LOGGER.info("request masterCode:{},slaveCode:{},args:{}", request.getMasterCode(), request.getSlaveCode(), Arrays.toString(args));
+                returnValue = invokeService.invokeProcess(args);
+            } else {
+                Map<String, Object> args = messageConvertToHandlerArgs.convertArgs();
+                param = args;
+                LOGGER.info("request masterCode:{},slaveCode:{},param:{}", request.getMasterCode(), request.getSlaveCode(), args);
+                returnValue = invokeService.invokeProcess(args);
+            }
             if (!invokeService.isReturnVoid()) {
                 CommonsMessage response = messageConvertToHandlerArgs.convertMessageReturn(returnValue);
-                connectionContext.sendMessage(response);
+                if (response == request) response.getData();
+                if (response != null) response.setRequestId(request.getRequestId());
+                if (responses != null) {
+                    if (response != null) responses.add(response);
+                } else {
+                    connectionContext.sendMessage(response);
+                }
             }
         } catch (SocketException close) {
             CommonsUtil.safeClose(connectionContext);
         } catch (Exception e) {
             LOGGER.warn("invokeProcess fail. param:{}", param, e);
         } finally {
+            request.release();
             messageConvertToHandlerArgs.removeCommonsMessage();
             SocketConnectionUtil.removeChannelHandlerContext();
         }
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.net.checksum;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.zip.CRC32;
+
+/**
+ * Plain CRC32 folded to 16 bits, available on every JVM. It has a type of its own so a Java 8
+ * peer never claims {@link Crc32cFrameChecksum#TYPE} while computing a different polynomial.
+ */
+public class Crc32FrameChecksum implements FrameChecksum {
+
+    public static final byte TYPE = 3;
+
+    @Override
+    public byte getType() {
+        return TYPE;
+    }
+
+    @Override
+    public short calc(byte[] data, int offset, int length) {
+        CRC32 checksum = new CRC32();
+        checksum.update(data, offset, length);
+        return fold(checksum.getValue());
+    }
+
+    @Override
+    public short calc(ByteBuf data, int index, int length) {
+        if (data.hasArray()) {
+            return calc(data.array(), data.arrayOffset() + index, length);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(data.nioBuffer(index, length));
+        return fold(checksum.getValue());
+    }
+
+    private static short fold(long checksum) {
+        int value = (int) checksum;
+        return (short) (value ^ (value >>> 16));
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chenhao96.component.net.checksum;
+
+import io.netty.buffer.ByteBuf;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * CRC32C folded to 16 bits. {@code java.util.zip.CRC32C} is only available since Java 9, on Java 8
+ * this type is not registered at all so it is never negotiated, see {@link Crc32FrameChecksum}.
+ */
+public class Crc32cFrameChecksum implements FrameChecksum {
+
+    public static final byte TYPE = 2;
+
+    private static final MethodHandle CONSTRUCTOR;
+    private static final MethodHandle UPDATE_BUFFER;
+
+    static {
+        MethodHandle constructor = null;
+        MethodHandle updateBuffer = null;
+        try {
+            Class<?> checksumClass = Class.forName("java.util.zip.CRC32C");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            constructor = lookup.findConstructor(checksumClass, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Checksum.class));
+            updateBuffer = lookup.findVirtual(checksumClass, "update", MethodType.methodType(void.class, ByteBuffer.class))
+                    .asType(MethodType.methodType(void.class, Checksum.class, ByteBuffer.class));
+        } catch (ClassNotFoundException e) {
+            // Java 8, isAvailable() is false
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        CONSTRUCTOR = constructor;
+        UPDATE_BUFFER = updateBuffer;
+    }
+
+    public Crc32cFrameChecksum() {
+        if (!isAvailable()) throw new IllegalStateException("java.util.zip.CRC32C requires Java 9+");
+    }
+
+    public static boolean isAvailable() {
+        return CONSTRUCTOR != null;
+    }
+
+    @Override
+    public byte getType() {
+        return TYPE;
+    }
+
+    @Override
+    public short calc(byte[] data, int offset, int length) {
+        Checksum checksum = newChecksum();
+        checksum.update(data, offset, length);
+        return fold(checksum);
+    }
+
+    @Override
+    public short calc(ByteBuf data, int index, int length) {
+        if (data.hasArray()) {
+            return calc(data.array(), data.arrayOffset() + index, length);
+        }
+        Checksum checksum = newChecksum();
+        try {
+            UPDATE_BUFFER.invokeExact(checksum, data.nioBuffer(index, length));
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+        return fold(checksum);
+    }
+
+    private static Checksum newChecksum() {
+        try {
+            return (Checksum) CONSTRUCTOR.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static short fold(Checksum checksum) {
+        int value = (int) checksum.getValue();
+        return (short) (value ^ (value >>> 16));
+    }
+}
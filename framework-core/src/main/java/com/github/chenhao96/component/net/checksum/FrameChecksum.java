@@ -0,0 +1,32 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chenhao96.component.net.checksum;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Checksum of the frame body (masterCode, slaveCode and data).
+ * Implementations are looked up by {@link #getType()} during the connection handshake,
+ * additional ones can be registered through {@link java.util.ServiceLoader}.
+ */
+public interface FrameChecksum {
+
+    byte getType();
+
+    short calc(byte[] data, int offset, int length);
+
+    short calc(ByteBuf data, int index, int length);
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chenhao96.component.net.checksum;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ServiceLoader;
+
+public final class FrameChecksums {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FrameChecksums.class);
+
+    public static final FrameChecksum NONE = new NoneFrameChecksum();
+    public static final FrameChecksum LEGACY = new LegacyFrameChecksum();
+    public static final FrameChecksum CRC32 = new Crc32FrameChecksum();
+    /**
+     * {@code null} on Java 8, the type is only offered and accepted where {@code java.util.zip.CRC32C} exists.
+     */
+    public static final FrameChecksum CRC32C = Crc32cFrameChecksum.isAvailable() ? new Crc32cFrameChecksum() : null;
+
+    private static final FrameChecksum[] checksums = loadChecksums();
+
+    private FrameChecksums() {
+    }
+
+    private static FrameChecksum[] loadChecksums() {
+        FrameChecksum[] result = new FrameChecksum[256];
+        result[NONE.getType() & 0xFF] = NONE;
+        result[LEGACY.getType() & 0xFF] = LEGACY;
+        result[CRC32.getType() & 0xFF] = CRC32;
+        if (CRC32C != null) result[CRC32C.getType() & 0xFF] = CRC32C;
+        for (FrameChecksum checksum : ServiceLoader.load(FrameChecksum.class)) {
+            if (result[checksum.getType() & 0xFF] != null) {
+                LOGGER.warn("FrameChecksum type:{} is already registered, ignore:{}", checksum.getType(), checksum.getClass().getName());
+                continue;
+            }
+            result[checksum.getType() & 0xFF] = checksum;
+        }
+        return result;
+    }
+
+    public static FrameChecksum getChecksum(byte type) {
+        return checksums[type & 0xFF];
+    }
+
+    public static FrameChecksum negotiate(byte[] offered, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            FrameChecksum checksum = getChecksum(offered[i]);
+            if (checksum != null) return checksum;
+        }
+        return LEGACY;
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chenhao96.component.net.checksum;
+
+import io.netty.buffer.ByteBuf;
+import org.springframework.util.Assert;
+
+public class LegacyFrameChecksum implements FrameChecksum {
+
+    public static final byte TYPE = 1;
+
+    @Override
+    public byte getType() {
+        return TYPE;
+    }
+
+    @Override
+    public short calc(byte[] data, int offset, int length) {
+
+        Assert.isTrue((length + offset) <= data.length, "data index out of length!");
+        short result = 996;
+        for (int i = offset; i < length + offset; i++) {
+            result |= data[i] & 138;
+        }
+
+        return (short) (result & 7788);
+    }
+
+    @Override
+    public short calc(ByteBuf data, int index, int length) {
+
+        Assert.isTrue((length + index) <= data.writerIndex(), "data index out of length!");
+        short result = 996;
+        for (int i = index; i < length + index; i++) {
+            result |= data.getByte(i) & 138;
+        }
+
+        return (short) (result & 7788);
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chenhao96.component.net.compress;
+
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class DeflateFrameCompressor implements FrameCompressor {
+
+    public static final byte TYPE = 1;
+
+    private static final ThreadLocal<Deflater> deflaterHolder = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+    private static final ThreadLocal<Inflater> inflaterHolder = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    @Override
+    public byte getType() {
+        return TYPE;
+    }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) {
+        Deflater deflater = deflaterHolder.get();
+        deflater.reset();
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+
+        byte[] result = new byte[Integer.BYTES + length + 64];
+        ByteBuffer.wrap(result).putInt(length);
+        int position = Integer.BYTES;
+        while (!deflater.finished()) {
+            if (position == result.length) {
+                result = Arrays.copyOf(result, result.length * 2);
+            }
+            position += deflater.deflate(result, position, result.length - position);
+        }
+        return Arrays.copyOf(result, position);
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int maxLength) {
+        int originalLength = ByteBuffer.wrap(data, offset, length).getInt();
+        Assert.isTrue(originalLength >= 0 && originalLength <= maxLength, "decompress length out of range!");
+
+        Inflater inflater = inflaterHolder.get();
+        inflater.reset();
+        inflater.setInput(data, offset + Integer.BYTES, length - Integer.BYTES);
+        byte[] result = new byte[originalLength];
+        try {
+            int position = 0;
+            while (position < originalLength && !inflater.finished()) {
+                int count = inflater.inflate(result, position, originalLength - position);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                position += count;
+            }
+            Assert.isTrue(position == originalLength, "decompress data is incomplete!");
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException(e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chenhao96.component.net.compress;
+
+import com.github.chenhao96.component.net.CommonsMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.util.ServiceLoader;
+
+public final class FrameCompressors {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FrameCompressors.class);
+
+    public static final byte NONE_TYPE = 0;
+    public static final FrameCompressor DEFLATE = new DeflateFrameCompressor();
+
+    private static final FrameCompressor[] compressors = loadCompressors();
+
+    private FrameCompressors() {
+    }
+
+    private static FrameCompressor[] loadCompressors() {
+        FrameCompressor[] result = new FrameCompressor[256];
+        result[DEFLATE.getType() & 0xFF] = DEFLATE;
+        if (ClassUtils.isPresent("net.jpountz.lz4.LZ4Factory", FrameCompressors.class.getClassLoader())) {
+            result[Lz4FrameCompressor.TYPE & 0xFF] = new Lz4FrameCompressor();
+        }
+        for (FrameCompressor compressor : ServiceLoader.load(FrameCompressor.class)) {
+            if (compressor.getType() == NONE_TYPE || result[compressor.getType() & 0xFF] != null) {
+                LOGGER.warn("FrameCompressor type:{} is already registered, ignore:{}", compressor.getType(), compressor.getClass().getName());
+                continue;
+            }
+            result[compressor.getType() & 0xFF] = compressor;
+        }
+        return result;
+    }
+
+    public static FrameCompressor getCompressor(byte type) {
+        return compressors[type & 0xFF];
+    }
+
+    public static byte getType(FrameCompressor compressor) {
+        return compressor == null ? NONE_TYPE : compressor.getType();
+    }
+
+    public static FrameCompressor negotiate(byte[] offered, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (offered[i] == NONE_TYPE) return null;
+            FrameCompressor compressor = getCompressor(offered[i]);
+            if (compressor != null) return compressor;
+        }
+        return null;
+    }
+
+    public static CommonsMessage compress(CommonsMessage message, FrameCompressor compressor, int threshold) {
+        if (compressor == null || message == null || message.isCompressed()) return message;
+        int length = message.getDataLength();
+        if (length == 0 || length < threshold) return message;
+
+        byte[] compressed = compressor.compress(message.getData(), 0, length);
+        if (compressed.length >= length) return message;
+
+        CommonsMessage result = new CommonsMessage(message.getMasterCode(), message.getSlaveCode(), compressed);
+        result.setCompressed(true);
+        result.setRequestId(message.getRequestId());
+        return result;
+    }
+
+    public static CommonsMessage decompress(CommonsMessage message, FrameCompressor compressor, int maxLength) {
+        if (message == null || !message.isCompressed()) return message;
+        try {
+            Assert.notNull(compressor, "compressed frame without negotiated compression!");
+            byte[] data = message.getData();
+            CommonsMessage result = new CommonsMessage(message.getMasterCode(), message.getSlaveCode(),
+                    compressor.decompress(data, 0, data.length, maxLength));
+            result.setRequestId(message.getRequestId());
+            return result;
+        } finally {
+            message.release();
+        }
+    }
+}
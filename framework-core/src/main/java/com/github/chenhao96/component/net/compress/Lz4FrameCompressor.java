@@ -0,0 +1,67 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chenhao96.component.net.compress;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class Lz4FrameCompressor implements FrameCompressor {
+
+    public static final byte TYPE = 2;
+
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    public Lz4FrameCompressor() {
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    @Override
+    public byte getType() {
+        return TYPE;
+    }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) {
+        byte[] result = new byte[Integer.BYTES + compressor.maxCompressedLength(length)];
+        ByteBuffer.wrap(result).putInt(length);
+        int compressedLength = compressor.compress(data, offset, length, result, Integer.BYTES);
+        return Arrays.copyOf(result, Integer.BYTES + compressedLength);
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int maxLength) {
+        int originalLength = ByteBuffer.wrap(data, offset, length).getInt();
+        Assert.isTrue(originalLength >= 0 && originalLength <= maxLength, "decompress length out of range!");
+
+        byte[] result = new byte[originalLength];
+        try {
+            int compressedLength = decompressor.decompress(data, offset + Integer.BYTES, result, 0, originalLength);
+            Assert.isTrue(compressedLength == length - Integer.BYTES, "decompress data is incomplete!");
+        } catch (LZ4Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+        return result;
+    }
+}
@@ -19,21 +19,44 @@ package com.github.chenhao96.component.netty;
 import com.github.chenhao96.component.ComponentService;
 import com.github.chenhao96.model.ConfigProperty;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.util.SelfSignedCertificate;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public abstract class AbstractNettyComponent implements ComponentService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractNettyComponent.class);
+
+    private static final String EPOLL_CLASS_NAME = "io.netty.channel.epoll.Epoll";
+
     private boolean start;
     private boolean initialize;
+    private int acceptors;
     protected SslContext sslCtx;
     private EventLoopGroup bossGroup;
     private ServerBootstrap bootstrap;
     private EventLoopGroup workerGroup;
+    private final List<Channel> serverChannels = new ArrayList<>();
+    protected final ChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
 
     @Override
     public boolean initialized() {
@@ -53,35 +76,114 @@ public abstract class AbstractNettyComponent implements ComponentService {
             SelfSignedCertificate ssc = new SelfSignedCertificate();
             this.sslCtx = SslContextBuilder.forServer(ssc.certificate(), ssc.privateKey()).build();
         }
-        this.bossGroup = new NioEventLoopGroup(1);
-        this.workerGroup = new NioEventLoopGroup();
+        this.acceptors = Math.max(1, ConfigProperty.getNettyAcceptors());
+        int bossThreads = Math.max(this.acceptors, ConfigProperty.getNettyBossThreads());
+        int workerThreads = Math.max(0, ConfigProperty.getNettyWorkerThreads());
         this.bootstrap = new ServerBootstrap();
+        if (useEpoll()) {
+            this.bossGroup = EpollTransport.newEventLoopGroup(bossThreads);
+            this.workerGroup = EpollTransport.newEventLoopGroup(workerThreads);
+            this.bootstrap.channel(EpollTransport.serverChannelClass());
+            if (this.acceptors > 1) EpollTransport.reusePort(this.bootstrap);
+        } else {
+            if (this.acceptors > 1) {
+                LOGGER.warn("SO_REUSEPORT needs the native epoll transport, bind a single acceptor instead of {}", this.acceptors);
+                this.acceptors = 1;
+            }
+            this.bossGroup = new NioEventLoopGroup(bossThreads);
+            this.workerGroup = new NioEventLoopGroup(workerThreads);
+            this.bootstrap.channel(NioServerSocketChannel.class);
+        }
         this.bootstrap.group(bossGroup, workerGroup);
-        this.bootstrap.channel(NioServerSocketChannel.class);
+        this.socketOptions(this.bootstrap);
         this.channelInitializer(bootstrap);
         this.initialize = true;
     }
 
+    private static boolean useEpoll() {
+        if (!ConfigProperty.getNettyNativeTransport()) return false;
+        if (!ClassUtils.isPresent(EPOLL_CLASS_NAME, AbstractNettyComponent.class.getClassLoader())) return false;
+        return EpollTransport.isAvailable();
+    }
+
+    protected void socketOptions(ServerBootstrap bootstrap) {
+        bootstrap.option(ChannelOption.SO_BACKLOG, ConfigProperty.getSocketBacklog());
+        bootstrap.childOption(ChannelOption.SO_KEEPALIVE, ConfigProperty.getSocketKeepAlive());
+        bootstrap.childOption(ChannelOption.TCP_NODELAY, ConfigProperty.getSocketTcpNoDelay());
+        bootstrap.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        bootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                ConfigProperty.getWriteBufferLowWaterMark(), ConfigProperty.getWriteBufferHighWaterMark()));
+        int receiveBufferSize = ConfigProperty.getSocketReceiveBufferSize();
+        if (receiveBufferSize > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, receiveBufferSize);
+            bootstrap.childOption(ChannelOption.SO_RCVBUF, receiveBufferSize);
+        }
+        int sendBufferSize = ConfigProperty.getSocketSendBufferSize();
+        if (sendBufferSize > 0) bootstrap.childOption(ChannelOption.SO_SNDBUF, sendBufferSize);
+    }
+
     protected abstract void channelInitializer(ServerBootstrap bootstrap);
 
     @Override
     public void start() throws Exception {
-        if (!this.start) return;
+        if (this.start) return;
         if (!this.initialize) return;
         this.start = false;
         int port = ConfigProperty.getSocketPort();
-        this.bootstrap.bind(port).sync();
+        for (int i = 0; i < this.acceptors; i++) {
+            this.serverChannels.add(this.bootstrap.bind(port).sync().channel());
+        }
         this.start = true;
     }
 
+    @Override
+    public void suspend() throws Exception {
+        if (!this.start) return;
+        closeServerChannels();
+        for (Channel channel : this.channels) {
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    @Override
+    public boolean awaitDrained(long deadline) throws InterruptedException {
+        if (!awaitInFlight(deadline)) return false;
+        List<ChannelFuture> flushes = new ArrayList<>(this.channels.size());
+        for (Channel channel : this.channels) {
+            flushes.add(channel.writeAndFlush(Unpooled.EMPTY_BUFFER));
+        }
+        for (ChannelFuture flush : flushes) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0 || !flush.await(remaining)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Waits for the requests already read from the channels, the responses are flushed afterwards.
+     */
+    protected boolean awaitInFlight(long deadline) throws InterruptedException {
+        return true;
+    }
+
+    private void closeServerChannels() {
+        for (Channel channel : this.serverChannels) {
+            channel.close().awaitUninterruptibly();
+        }
+        this.serverChannels.clear();
+    }
+
     @Override
     public void stop() throws Exception {
         if (!this.start) return;
+        closeServerChannels();
+        this.channels.close().awaitUninterruptibly();
         if (workerGroup != null) {
-            workerGroup.shutdownGracefully();
+            workerGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS).awaitUninterruptibly();
         }
         if (bossGroup != null) {
-            bossGroup.shutdownGracefully();
+            bossGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS).awaitUninterruptibly();
         }
+        this.start = false;
     }
 }
@@ -0,0 +1,175 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.netty;
+
+import com.github.chenhao96.component.executor.InFlightCounter;
+import com.github.chenhao96.component.executor.TaskExecutorService;
+import com.github.chenhao96.component.net.SerialTask;
+import com.github.chenhao96.model.ConfigProperty;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import org.springframework.util.Assert;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stops auto-read on a channel while the executor queue, the channel's own in-flight
+ * task count or its outbound buffer is above the high water mark, and resumes it once
+ * all of them are back under the low water mark.
+ */
+public class NettyBackpressureController {
+
+    private static final AttributeKey<AtomicInteger> IN_FLIGHT_KEY =
+            AttributeKey.valueOf(NettyBackpressureController.class, "inFlight");
+
+    private final int queueLowWaterMark;
+    private final int queueHighWaterMark;
+    private final int inFlightLowWaterMark;
+    private final int inFlightHighWaterMark;
+    private final TaskExecutorService executorService;
+    private final Set<Channel> pausedChannels = ConcurrentHashMap.newKeySet();
+    private final InFlightCounter totalInFlight = new InFlightCounter();
+    private volatile boolean suspended;
+
+    public NettyBackpressureController(TaskExecutorService executorService) {
+        this(executorService, ConfigProperty.getExecutorQueueLowWaterMark(), ConfigProperty.getExecutorQueueHighWaterMark(),
+                ConfigProperty.getInFlightLowWaterMark(), ConfigProperty.getInFlightHighWaterMark());
+    }
+
+    public NettyBackpressureController(TaskExecutorService executorService, int queueLowWaterMark, int queueHighWaterMark,
+                                       int inFlightLowWaterMark, int inFlightHighWaterMark) {
+        Assert.notNull(executorService, "TaskExecutorService is required!");
+        Assert.isTrue(queueLowWaterMark <= queueHighWaterMark, "queue low water mark must not exceed the high water mark");
+        Assert.isTrue(inFlightLowWaterMark <= inFlightHighWaterMark, "in-flight low water mark must not exceed the high water mark");
+        this.executorService = executorService;
+        this.queueLowWaterMark = queueLowWaterMark;
+        this.queueHighWaterMark = queueHighWaterMark;
+        this.inFlightLowWaterMark = inFlightLowWaterMark;
+        this.inFlightHighWaterMark = inFlightHighWaterMark;
+    }
+
+    public void submit(Channel channel, Runnable task) {
+        AtomicInteger inFlight = inFlight(channel);
+        int count = inFlight.incrementAndGet();
+        totalInFlight.increment();
+        try {
+            executorService.addHandler(SerialTask.keyOf(task), () -> {
+                try {
+                    task.run();
+                } finally {
+                    complete(inFlight);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            totalInFlight.decrement();
+            throw e;
+        }
+        if (count >= inFlightHighWaterMark || executorService.getQueueSize() >= queueHighWaterMark) {
+            pause(channel);
+        }
+    }
+
+    private void complete(AtomicInteger inFlight) {
+        inFlight.decrementAndGet();
+        totalInFlight.decrement();
+        if (pausedChannels.isEmpty()) return;
+        if (executorService.getQueueSize() > queueLowWaterMark) return;
+        for (Channel channel : pausedChannels) {
+            resume(channel);
+        }
+    }
+
+    public void writabilityChanged(Channel channel) {
+        if (channel.isWritable()) {
+            resume(channel);
+        } else {
+            pause(channel);
+        }
+    }
+
+    /**
+     * Keeps every channel from being resumed again, used while the component drains.
+     */
+    public void suspend() {
+        suspended = true;
+    }
+
+    public boolean awaitInFlight(long deadline) throws InterruptedException {
+        return totalInFlight.awaitZero(deadline);
+    }
+
+    public void channelInactive(Channel channel) {
+        pausedChannels.remove(channel);
+    }
+
+    private synchronized void pause(Channel channel) {
+        if (!pausedChannels.add(channel)) return;
+        channel.config().setAutoRead(false);
+        // the tasks may already have drained while we were deciding to pause
+        resume(channel);
+    }
+
+    private synchronized void resume(Channel channel) {
+        if (!pausedChannels.contains(channel)) return;
+        if (channel.isActive()) {
+            if (suspended) return;
+            if (!channel.isWritable()) return;
+            if (inFlight(channel).get() > inFlightLowWaterMark) return;
+            if (executorService.getQueueSize() > queueLowWaterMark) return;
+            channel.config().setAutoRead(true);
+        }
+        pausedChannels.remove(channel);
+    }
+
+    private static AtomicInteger inFlight(Channel channel) {
+        AtomicInteger inFlight = channel.attr(IN_FLIGHT_KEY).get();
+        if (inFlight == null) {
+            inFlight = new AtomicInteger();
+            AtomicInteger exist = channel.attr(IN_FLIGHT_KEY).setIfAbsent(inFlight);
+            if (exist != null) inFlight = exist;
+        }
+        return inFlight;
+    }
+
+    public boolean isPaused(Channel channel) {
+        return pausedChannels.contains(channel);
+    }
+
+    public int getPausedChannelCount() {
+        return pausedChannels.size();
+    }
+
+    public int getInFlightCount(Channel channel) {
+        return inFlight(channel).get();
+    }
+
+    public int getQueueSize() {
+        return executorService.getQueueSize();
+    }
+
+    public int getInFlightCount() {
+        return totalInFlight.get();
+    }
+
+    public int getActiveCount() {
+        return executorService.getActiveCount();
+    }
+}
@@ -17,34 +17,96 @@
 package com.github.chenhao96.component.netty;
 
 import com.github.chenhao96.component.net.CommonsMessage;
+import com.github.chenhao96.component.net.ConnectionHandshake;
+import com.github.chenhao96.component.net.checksum.FrameChecksum;
+import com.github.chenhao96.component.net.checksum.FrameChecksums;
+import com.github.chenhao96.model.ConfigProperty;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteBuffer;
 import java.util.List;
 
 public class NettyCommonCodecFactory extends ByteToMessageCodec<CommonsMessage> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NettyCommonCodecFactory.class);
 
+    private final int maxFrameLength;
+    private FrameChecksum checksum = FrameChecksums.LEGACY;
+
+    public NettyCommonCodecFactory() {
+        this(ConfigProperty.getMaxFrameLength());
+    }
+
+    public NettyCommonCodecFactory(int maxFrameLength) {
+        super(true);
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    public FrameChecksum getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(FrameChecksum checksum) {
+        this.checksum = checksum == null ? FrameChecksums.LEGACY : checksum;
+    }
+
     @Override
     protected void encode(ChannelHandlerContext channelHandlerContext, CommonsMessage commonsMessage, ByteBuf byteBuf) throws Exception {
         if (commonsMessage == null) return;
-        ByteBuffer byteBuffer = CommonsMessage.createByteBufByMessage(commonsMessage);
-        byteBuf.writeBytes(byteBuffer);
-        channelHandlerContext.flush();
+        CommonsMessage.writeMessage(commonsMessage, byteBuf, checksum);
     }
 
     @Override
     protected void decode(ChannelHandlerContext channelHandlerContext, ByteBuf byteBuf, List<Object> list) throws Exception {
-        try {
-            CommonsMessage message = CommonsMessage.createMessageByByteBuf(byteBuf);
-            list.add(message);
-        } catch (IllegalArgumentException e) {
-            LOGGER.warn("decode", e);
+        while (byteBuf.readableBytes() >= CommonsMessage.HEAD_LENGTH) {
+
+            int readerIndex = byteBuf.readerIndex();
+            if (!CommonsMessage.isBodyHead(byteBuf.getShort(readerIndex))) {
+                discardChannel(channelHandlerContext, byteBuf, "byteBuf bodyHead is fail!");
+                return;
+            }
+
+            int length = byteBuf.getInt(readerIndex + Short.BYTES);
+            long frameLength = CommonsMessage.frameLength(length);
+            if (frameLength > maxFrameLength) {
+                discardChannel(channelHandlerContext, byteBuf, "frame length " + frameLength + " exceeds " + maxFrameLength);
+                return;
+            }
+
+            if (byteBuf.readableBytes() < frameLength) return;
+
+            CommonsMessage message;
+            try {
+                message = CommonsMessage.createMessageByByteBuf(byteBuf, checksum);
+            } catch (IllegalArgumentException e) {
+                byteBuf.readerIndex(readerIndex + (int) frameLength);
+                LOGGER.warn("decode", e);
+                continue;
+            }
+
+            if (ConnectionHandshake.isHandshake(message)) {
+                handshake(channelHandlerContext, message);
+            } else {
+                list.add(message);
+            }
         }
     }
+
+    protected void handshake(ChannelHandlerContext channelHandlerContext, CommonsMessage message) {
+        ConnectionHandshake handshake = ConnectionHandshake.negotiate(message);
+        message.release();
+        channelHandlerContext.channel().writeAndFlush(handshake.createReply());
+        this.checksum = handshake.getChecksum();
+        NettyCompressionCodec compressionCodec = channelHandlerContext.pipeline().get(NettyCompressionCodec.class);
+        if (compressionCodec != null) compressionCodec.setCompressor(handshake.getCompressor());
+    }
+
+    private void discardChannel(ChannelHandlerContext channelHandlerContext, ByteBuf byteBuf, String reason) {
+        LOGGER.warn("decode fail, close channel:{},reason:{}", channelHandlerContext.channel(), reason);
+        byteBuf.skipBytes(byteBuf.readableBytes());
+        channelHandlerContext.close();
+    }
 }
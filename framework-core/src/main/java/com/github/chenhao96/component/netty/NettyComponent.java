@@ -20,13 +20,17 @@ import com.github.chenhao96.component.executor.TaskExecutorService;
 import com.github.chenhao96.component.net.DefaultMessageConvertToHandlerArgs;
 import com.github.chenhao96.component.net.MessageConvertToHandlerArgs;
 import com.github.chenhao96.component.process.handler.HandlerFactory;
+import com.github.chenhao96.model.ConfigProperty;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.ChannelOption;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.Resource;
+import java.util.concurrent.TimeUnit;
 
 public class NettyComponent extends AbstractNettyComponent {
 
@@ -41,25 +45,63 @@ public class NettyComponent extends AbstractNettyComponent {
     @Autowired(required = false)
     private MessageConvertToHandlerArgs messageConvertToHandlerArgs;
 
+    private NettyBackpressureController backpressureController;
+
+    private HashedWheelTimer heartbeatTimer;
+
     @Override
     public String getComponentName() {
         return COMPONENT_NAME;
     }
 
+    public NettyBackpressureController getBackpressureController() {
+        return backpressureController;
+    }
+
     @Override
     protected void channelInitializer(ServerBootstrap bootstrap) {
         if (bootstrap == null) return;
+        NettyBackpressureController backpressureController = new NettyBackpressureController(executorService);
+        this.backpressureController = backpressureController;
+        HashedWheelTimer heartbeatTimer = new HashedWheelTimer(
+                new DefaultThreadFactory("netty-heartbeat", true), 100, TimeUnit.MILLISECONDS);
+        this.heartbeatTimer = heartbeatTimer;
         bootstrap.childHandler(new ChannelInitializer<SocketChannel>() {
             protected void initChannel(SocketChannel socketChannel) throws Exception {
+                channels.add(socketChannel);
+                socketChannel.pipeline().addLast("flushConsolidation",
+                        new FlushConsolidationHandler(ConfigProperty.getExplicitFlushAfterFlushes(), true));
                 socketChannel.pipeline().addLast("codec", new NettyCommonCodecFactory());
+                socketChannel.pipeline().addLast("compression", new NettyCompressionCodec());
+                socketChannel.pipeline().addLast("heartbeat", new NettyHeartbeatHandler(heartbeatTimer));
                 NettySocketFrameHandler socketFrameHandler = new NettySocketFrameHandler();
                 socketFrameHandler.setHandlerFactory(handlerFactory);
                 socketFrameHandler.setExecutorService(executorService);
+                socketFrameHandler.setBackpressureController(backpressureController);
                 MessageConvertToHandlerArgs convertToHandlerArgs = messageConvertToHandlerArgs;
                 if (convertToHandlerArgs == null) convertToHandlerArgs = new DefaultMessageConvertToHandlerArgs();
                 socketFrameHandler.setMessageConvertToHandlerArgs(convertToHandlerArgs);
                 socketChannel.pipeline().addLast("handler", socketFrameHandler);
             }
-        }).option(ChannelOption.SO_BACKLOG, 128).childOption(ChannelOption.SO_KEEPALIVE, true);
+        });
+    }
+
+    @Override
+    public void suspend() throws Exception {
+        if (backpressureController != null) backpressureController.suspend();
+        super.suspend();
+    }
+
+    @Override
+    protected boolean awaitInFlight(long deadline) throws InterruptedException {
+        return backpressureController == null || backpressureController.awaitInFlight(deadline);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        super.stop();
+        if (heartbeatTimer != null) {
+            heartbeatTimer.stop();
+        }
     }
 }
@@ -0,0 +1,63 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chenhao96.component.netty;
+
+import com.github.chenhao96.component.net.CommonsMessage;
+import com.github.chenhao96.component.net.compress.FrameCompressor;
+import com.github.chenhao96.component.net.compress.FrameCompressors;
+import com.github.chenhao96.model.ConfigProperty;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+public class NettyCompressionCodec extends MessageToMessageCodec<CommonsMessage, CommonsMessage> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NettyCompressionCodec.class);
+
+    private final int threshold;
+    private final int maxFrameLength;
+    private FrameCompressor compressor;
+
+    public NettyCompressionCodec() {
+        this(ConfigProperty.getCompressThreshold(), ConfigProperty.getMaxFrameLength());
+    }
+
+    public NettyCompressionCodec(int threshold, int maxFrameLength) {
+        this.threshold = threshold;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    public void setCompressor(FrameCompressor compressor) {
+        this.compressor = compressor;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext channelHandlerContext, CommonsMessage commonsMessage, List<Object> list) throws Exception {
+        list.add(FrameCompressors.compress(commonsMessage, compressor, threshold));
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext channelHandlerContext, CommonsMessage commonsMessage, List<Object> list) throws Exception {
+        try {
+            list.add(FrameCompressors.decompress(commonsMessage, compressor, maxFrameLength));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("decompress", e);
+        }
+    }
+}
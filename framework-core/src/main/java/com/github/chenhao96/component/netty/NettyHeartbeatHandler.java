@@ -0,0 +1,168 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.netty;
+
+import com.github.chenhao96.component.net.CommonsMessage;
+import com.github.chenhao96.model.ConfigProperty;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the (0,0) heartbeat when nothing was written for {@code writerIdleTime} and closes
+ * the channel after {@code maxMissedHeartbeats} reader idle periods without any inbound frame.
+ * The checks run on a timer shared by every channel instead of per-channel scheduled tasks.
+ */
+public class NettyHeartbeatHandler extends ChannelDuplexHandler implements TimerTask {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NettyHeartbeatHandler.class);
+
+    private static final long MIN_CHECK_DELAY = 10L;
+
+    private final Timer timer;
+    private final long readerIdleTime;
+    private final long writerIdleTime;
+    private final int maxMissedHeartbeats;
+
+    private ChannelHandlerContext ctx;
+    private volatile Timeout timeout;
+    private volatile boolean destroyed;
+    private volatile long lastReadTime;
+    private volatile long lastWriteTime;
+
+    public NettyHeartbeatHandler(Timer timer) {
+        this(timer, ConfigProperty.getReaderIdleTime(), ConfigProperty.getWriterIdleTime(), ConfigProperty.getMaxMissedHeartbeats());
+    }
+
+    public NettyHeartbeatHandler(Timer timer, long readerIdleTime, long writerIdleTime, int maxMissedHeartbeats) {
+        Assert.notNull(timer, "Timer is required!");
+        this.timer = timer;
+        this.readerIdleTime = Math.max(0L, readerIdleTime);
+        this.writerIdleTime = Math.max(0L, writerIdleTime);
+        this.maxMissedHeartbeats = Math.max(1, maxMissedHeartbeats);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isActive()) initialize(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        destroy();
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        initialize(ctx);
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        destroy();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        lastReadTime = System.currentTimeMillis();
+        if (msg instanceof CommonsMessage && isHeartbeat((CommonsMessage) msg)) {
+            ((CommonsMessage) msg).release();
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        lastWriteTime = System.currentTimeMillis();
+        ctx.write(msg, promise);
+    }
+
+    private static boolean isHeartbeat(CommonsMessage message) {
+        return message.getMasterCode() == CommonsMessage.CONTROL_MASTER_CODE
+                && message.getSlaveCode() == CommonsMessage.HEARTBEAT_SLAVE_CODE;
+    }
+
+    private void initialize(ChannelHandlerContext ctx) {
+        if (this.ctx != null || destroyed) return;
+        if (readerIdleTime == 0 && writerIdleTime == 0) return;
+        this.ctx = ctx;
+        lastReadTime = lastWriteTime = System.currentTimeMillis();
+        schedule(Math.min(idleOrMax(readerIdleTime), idleOrMax(writerIdleTime)));
+    }
+
+    private void destroy() {
+        destroyed = true;
+        Timeout timeout = this.timeout;
+        if (timeout != null) timeout.cancel();
+        this.timeout = null;
+    }
+
+    private void schedule(long delay) {
+        if (destroyed) return;
+        timeout = timer.newTimeout(this, Math.max(MIN_CHECK_DELAY, delay), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void run(Timeout timeout) throws Exception {
+        if (timeout.isCancelled() || destroyed) return;
+        // the timer thread is shared, do the actual work on the channel's event loop
+        ctx.executor().execute(this::check);
+    }
+
+    private void check() {
+        if (destroyed || !ctx.channel().isOpen()) return;
+        long now = System.currentTimeMillis();
+        long nextDelay = Long.MAX_VALUE;
+        if (readerIdleTime > 0) {
+            // reads are paused on purpose (backpressure or drain), the peer is not the one who went silent
+            if (!ctx.channel().config().isAutoRead()) lastReadTime = now;
+            long idle = now - lastReadTime;
+            if (idle >= readerIdleTime * maxMissedHeartbeats) {
+                LOGGER.info("connection {} missed {} heartbeats, close it.", ctx.channel().remoteAddress(), maxMissedHeartbeats);
+                ctx.close();
+                return;
+            }
+            nextDelay = readerIdleTime - idle % readerIdleTime;
+        }
+        if (writerIdleTime > 0) {
+            long idle = now - lastWriteTime;
+            if (idle >= writerIdleTime) {
+                lastWriteTime = now;
+                ctx.writeAndFlush(new CommonsMessage(CommonsMessage.CONTROL_MASTER_CODE, CommonsMessage.HEARTBEAT_SLAVE_CODE));
+                idle = 0;
+            }
+            nextDelay = Math.min(nextDelay, writerIdleTime - idle);
+        }
+        schedule(nextDelay);
+    }
+
+    private static long idleOrMax(long idleTime) {
+        return idleTime > 0 ? idleTime : Long.MAX_VALUE;
+    }
+}
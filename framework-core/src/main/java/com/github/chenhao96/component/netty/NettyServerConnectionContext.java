@@ -24,15 +24,17 @@ import org.springframework.util.Assert;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class NettyServerConnectionContext extends DefaultConnectionContext implements ConnectionContext {
 
     private int connectionPort;
     private String connectionIp;
     private ChannelHandlerContext channelHandlerContext;
-    private List<ConnectionCloseProcess> closeProcesses;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final List<ConnectionCloseProcess> closeProcesses = new CopyOnWriteArrayList<>();
     private MessageConvertToHandlerArgs messageConvertToHandlerArgs;
     private static final Logger LOGGER = LoggerFactory.getLogger(NettyServerConnectionContext.class);
 
@@ -41,7 +43,7 @@ public class NettyServerConnectionContext extends DefaultConnectionContext imple
         this.channelHandlerContext = channelHandlerContext;
         InetSocketAddress socketAddress = (InetSocketAddress) channelHandlerContext.channel().remoteAddress();
         this.connectionPort = socketAddress.getPort();
-        this.connectionIp = socketAddress.getHostName();
+        this.connectionIp = socketAddress.getHostString();
     }
 
     public void setMessageConvertToHandlerArgs(MessageConvertToHandlerArgs messageConvertToHandlerArgs) {
@@ -56,14 +58,19 @@ public class NettyServerConnectionContext extends DefaultConnectionContext imple
     @Override
     public void close() throws IOException {
         if (isClose()) return;
-        if (closeProcesses != null) {
-            for (ConnectionCloseProcess closeProcess : closeProcesses) {
-                if (closeProcess == null) continue;
+        fireClose();
+        channelHandlerContext.channel().close();
+    }
+
+    void fireClose() {
+        if (!closed.compareAndSet(false, true)) return;
+        for (ConnectionCloseProcess closeProcess : closeProcesses) {
+            try {
                 closeProcess.process(this);
+            } catch (Exception e) {
+                LOGGER.warn("connection close process fail.", e);
             }
         }
-        channelHandlerContext.channel().close();
-        channelHandlerContext.close();
     }
 
     @Override
@@ -78,9 +85,6 @@ public class NettyServerConnectionContext extends DefaultConnectionContext imple
     @Override
     public void addCloseProcess(ConnectionCloseProcess process) {
         if (process == null) return;
-        if (closeProcesses == null) {
-            closeProcesses = new LinkedList<>();
-        }
         closeProcesses.add(process);
     }
 
@@ -18,21 +18,38 @@ package com.github.chenhao96.component.netty;
 
 import com.github.chenhao96.component.executor.TaskExecutorService;
 import com.github.chenhao96.component.net.CommonsMessage;
+import com.github.chenhao96.component.net.CommonsMessageEnvelope;
+import com.github.chenhao96.component.net.EnvelopeHandlerTask;
 import com.github.chenhao96.component.net.MessageConvertToHandlerArgs;
+import com.github.chenhao96.component.net.ReleasableTask;
+import com.github.chenhao96.component.net.SerialTask;
 import com.github.chenhao96.component.net.SocketHandlerTask;
 import com.github.chenhao96.component.process.ProcessInvokeService;
 import com.github.chenhao96.component.process.handler.HandlerFactory;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.AttributeKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 public class NettySocketFrameHandler extends SimpleChannelInboundHandler<CommonsMessage> {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(NettySocketFrameHandler.class);
+
+    static final AttributeKey<NettyServerConnectionContext> CONNECTION_CONTEXT_KEY =
+            AttributeKey.valueOf(NettySocketFrameHandler.class, "connectionContext");
+
     private HandlerFactory handlerFactory;
 
     private TaskExecutorService executorService;
 
     private MessageConvertToHandlerArgs messageConvertToHandlerArgs;
 
+    private NettyBackpressureController backpressureController;
+
     public void setHandlerFactory(HandlerFactory handlerFactory) {
         this.handlerFactory = handlerFactory;
     }
@@ -45,18 +62,95 @@ public class NettySocketFrameHandler extends SimpleChannelInboundHandler<Commons
         this.messageConvertToHandlerArgs = messageConvertToHandlerArgs;
     }
 
+    public void setBackpressureController(NettyBackpressureController backpressureController) {
+        this.backpressureController = backpressureController;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        connectionContext(ctx);
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        NettyServerConnectionContext connectionContext = ctx.channel().attr(CONNECTION_CONTEXT_KEY).getAndSet(null);
+        if (connectionContext != null) connectionContext.fireClose();
+        if (backpressureController != null) backpressureController.channelInactive(ctx.channel());
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (backpressureController != null) backpressureController.writabilityChanged(ctx.channel());
+        super.channelWritabilityChanged(ctx);
+    }
+
+    private NettyServerConnectionContext connectionContext(ChannelHandlerContext ctx) {
+        NettyServerConnectionContext connectionContext = ctx.channel().attr(CONNECTION_CONTEXT_KEY).get();
+        if (connectionContext == null) {
+            connectionContext = new NettyServerConnectionContext(ctx);
+            connectionContext.setMessageConvertToHandlerArgs(messageConvertToHandlerArgs);
+            ctx.channel().attr(CONNECTION_CONTEXT_KEY).set(connectionContext);
+        }
+        return connectionContext;
+    }
+
     @Override
     protected void channelRead0(ChannelHandlerContext channelHandlerContext, CommonsMessage commonsMessage) throws Exception {
         if (commonsMessage == null) return;
+        NettyServerConnectionContext connectionContext = connectionContext(channelHandlerContext);
+        if (CommonsMessageEnvelope.isEnvelope(commonsMessage)) {
+            channelReadEnvelope(channelHandlerContext, connectionContext, commonsMessage);
+            return;
+        }
+        SocketHandlerTask task = createTask(connectionContext, commonsMessage);
+        if (task != null) submit(channelHandlerContext, task);
+    }
+
+    private void channelReadEnvelope(ChannelHandlerContext channelHandlerContext, NettyServerConnectionContext connectionContext,
+                                     CommonsMessage envelope) {
+        List<CommonsMessage> messages;
+        try {
+            messages = CommonsMessageEnvelope.unpack(envelope);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("unpack envelope fail.", e);
+            return;
+        } finally {
+            envelope.release();
+        }
+
+        EnvelopeHandlerTask envelopeTask = new EnvelopeHandlerTask(connectionContext);
+        for (CommonsMessage message : messages) {
+            SocketHandlerTask task = createTask(connectionContext, message);
+            if (task != null) envelopeTask.addTask(task);
+        }
+        if (!envelopeTask.isEmpty()) submit(channelHandlerContext, envelopeTask);
+    }
+
+    private void submit(ChannelHandlerContext ctx, Runnable task) {
+        try {
+            if (backpressureController == null) {
+                executorService.addHandler(SerialTask.keyOf(task), task);
+            } else {
+                backpressureController.submit(ctx.channel(), task);
+            }
+        } catch (RejectedExecutionException e) {
+            ReleasableTask.releaseIfNeeded(task);
+            LOGGER.warn("handler task rejected, message dropped.", e);
+        }
+    }
+
+    private SocketHandlerTask createTask(NettyServerConnectionContext connectionContext, CommonsMessage commonsMessage) {
         ProcessInvokeService invokeService = handlerFactory.getProcessMethod(commonsMessage.getMasterCode(), commonsMessage.getSlaveCode());
-        if (invokeService != null) {
-            SocketHandlerTask task = new SocketHandlerTask(commonsMessage);
-            NettyServerConnectionContext connectionContext = new NettyServerConnectionContext(channelHandlerContext);
-            connectionContext.setMessageConvertToHandlerArgs(messageConvertToHandlerArgs);
-            task.setConnectionContext(connectionContext);
-            task.setInvokeService(invokeService);
-            task.setMessageConvertToHandlerArgs(messageConvertToHandlerArgs);
-            executorService.addHandler(task);
+        if (invokeService == null) {
+            commonsMessage.release();
+            return null;
         }
+        SocketHandlerTask task = new SocketHandlerTask(commonsMessage);
+        task.setConnectionContext(connectionContext);
+        task.setInvokeService(invokeService);
+        task.setMessageConvertToHandlerArgs(messageConvertToHandlerArgs);
+        return task;
     }
 }
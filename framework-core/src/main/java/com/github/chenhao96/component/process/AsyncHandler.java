@@ -18,9 +18,18 @@ package com.github.chenhao96.component.process;
 
 import java.lang.annotation.*;
 
+/**
+ * Serializes the calls of a handler. Without a key the whole bean is locked, with a key only calls
+ * carrying an equal key wait for each other: the key is either a parameter name, whose argument
+ * value is used, or {@link #CONNECTION} to serialize per client connection.
+ */
 @Inherited
 @Documented
-@Target(ElementType.METHOD)
+@Target({ElementType.METHOD, ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface AsyncHandler {
+
+    String CONNECTION = "#connection";
+
+    String value() default "";
 }
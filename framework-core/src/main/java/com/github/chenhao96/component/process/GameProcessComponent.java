@@ -68,9 +68,8 @@ public class GameProcessComponent implements ComponentService {
             for (ProcessHandlerService service : processHandlerServices) {
                 if (service == null) continue;
 
-                boolean threadSafety = false;
                 HandlerMapping classAnnotation = service.getClass().getAnnotation(HandlerMapping.class);
-                if (service.getClass().getAnnotation(AsyncHandler.class) != null) threadSafety = true;
+                AsyncHandler classAsyncHandler = service.getClass().getAnnotation(AsyncHandler.class);
                 byte masterCode = classAnnotation == null ? 0 : classAnnotation.value();
 
                 Method[] methods = service.getClass().getDeclaredMethods();
@@ -84,9 +83,10 @@ public class GameProcessComponent implements ComponentService {
 
                     HandlerMapping methodAnnotation = method.getAnnotation(HandlerMapping.class);
                     byte slaveCode = methodAnnotation == null ? 0 : methodAnnotation.value();
-                    if (!threadSafety && method.getAnnotation(AsyncHandler.class) != null) threadSafety = true;
+                    AsyncHandler asyncHandler = method.getAnnotation(AsyncHandler.class);
+                    if (asyncHandler == null) asyncHandler = classAsyncHandler;
 
-                    handlerFactory.addHandler(masterCode, slaveCode, service, method, threadSafety);
+                    handlerFactory.addHandler(masterCode, slaveCode, service, method, asyncHandler);
                 }
             }
         }
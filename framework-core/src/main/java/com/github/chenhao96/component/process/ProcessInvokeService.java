@@ -16,11 +16,25 @@
 
 package com.github.chenhao96.component.process;
 
+import java.lang.reflect.Type;
 import java.util.Map;
 
 public interface ProcessInvokeService {
 
     boolean isReturnVoid();
 
+    String[] getParameterNames();
+
+    Type[] getParameterTypes();
+
     Object invokeProcess(Map<String, Object> args) throws Exception;
+
+    Object invokeProcess(Object[] args) throws Exception;
+
+    /**
+     * @return the {@link AsyncHandler} key the calls are serialized on, {@code null} when they are not
+     */
+    default String getSerialKey() {
+        return null;
+    }
 }
@@ -16,13 +16,18 @@
 
 package com.github.chenhao96.component.process.handler;
 
+import com.github.chenhao96.component.net.TypedMessageConvertToHandlerArgs;
+import com.github.chenhao96.component.process.AsyncHandler;
 import com.github.chenhao96.component.process.ProcessHandlerService;
 import com.github.chenhao96.component.process.ProcessInvokeService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.lang.reflect.Method;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -32,10 +37,17 @@ public class HandlerFactoryImpl implements HandlerFactory, InnerHandlerFactory {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HandlerFactoryImpl.class);
 
+    private static final int DISPATCH_TABLE_SIZE = 1 << 16;
+
     private boolean addFinish = false;
+    private volatile ProcessInvokeService[] dispatchTable;
     private Map<Byte, Map<Byte, Method>> serviceMethod;
     private Map<Byte, Map<Byte, ProcessHandlerService>> classBeans;
     private Map<Byte, Map<Byte, ProcessInvokeService>> process;
+    private final Map<ProcessHandlerService, Object[]> beanLocks = new IdentityHashMap<>();
+
+    @Autowired(required = false)
+    private List<TypedMessageConvertToHandlerArgs> typedConverters;
 
     @Override
     public ProcessInvokeService getProcessMethod(byte slaveCode) {
@@ -44,7 +56,10 @@ public class HandlerFactoryImpl implements HandlerFactory, InnerHandlerFactory {
 
     @Override
     public ProcessInvokeService getProcessMethod(byte masterCode, byte slaveCode) {
-        if (!this.addFinish) LOGGER.warn("handlerFactory is not stop add handler.");
+        ProcessInvokeService[] table = this.dispatchTable;
+        if (table != null) return table[dispatchIndex(masterCode, slaveCode)];
+
+        LOGGER.warn("handlerFactory is not stop add handler.");
         if (this.process == null) return null;
         Map<Byte, ProcessInvokeService> invokeServiceMap = this.process.get(masterCode);
         if (invokeServiceMap == null) return null;
@@ -74,14 +89,49 @@ public class HandlerFactoryImpl implements HandlerFactory, InnerHandlerFactory {
 
         this.classBeans = null;
         this.serviceMethod = null;
+        this.dispatchTable = createDispatchTable();
+        prepareConverters();
         this.addFinish = true;
     }
 
+    private void prepareConverters() {
+        if (this.typedConverters == null || this.process == null) return;
+        for (TypedMessageConvertToHandlerArgs converter : this.typedConverters) {
+            for (Map<Byte, ProcessInvokeService> invokeServiceMap : this.process.values()) {
+                if (invokeServiceMap == null) continue;
+                for (ProcessInvokeService invokeService : invokeServiceMap.values()) {
+                    converter.prepare(invokeService);
+                }
+            }
+        }
+    }
+
+    private ProcessInvokeService[] createDispatchTable() {
+        ProcessInvokeService[] table = new ProcessInvokeService[DISPATCH_TABLE_SIZE];
+        if (this.process == null) return table;
+        for (Map.Entry<Byte, Map<Byte, ProcessInvokeService>> master : this.process.entrySet()) {
+            if (master.getValue() == null) continue;
+            for (Map.Entry<Byte, ProcessInvokeService> slave : master.getValue().entrySet()) {
+                table[dispatchIndex(master.getKey(), slave.getKey())] = slave.getValue();
+            }
+        }
+        return table;
+    }
+
+    private static int dispatchIndex(byte masterCode, byte slaveCode) {
+        return (masterCode & 0xFF) << 8 | (slaveCode & 0xFF);
+    }
+
     @Override
-    public void addHandler(byte masterCode, byte slaveCode, ProcessHandlerService bean, Method handler, boolean threadSafety) {
+    public void addHandler(byte masterCode, byte slaveCode, ProcessHandlerService bean, Method handler, AsyncHandler asyncHandler) {
 
         if (bean == null || handler == null) return;
         if (masterCode == 0 || slaveCode == 0) return;
+        if (this.addFinish) {
+            // registering again after the freeze, lookups fall back to the maps until the next addHandlerStop
+            this.addFinish = false;
+            this.dispatchTable = null;
+        }
 
         Map<Byte, ProcessHandlerService> beanMap = getProcessInterface(masterCode);
         beanMap.put(slaveCode, bean);
@@ -98,12 +148,15 @@ public class HandlerFactoryImpl implements HandlerFactory, InnerHandlerFactory {
         this.serviceMethod.put(masterCode, methodMap);
 
         Map<Byte, ProcessInvokeService> invokeServiceMap = getProcessInvoke(masterCode);
-        invokeServiceMap.put(slaveCode, putHandlerMethod(threadSafety, bean, handler));
+        invokeServiceMap.put(slaveCode, putHandlerMethod(asyncHandler, bean, handler));
         this.process.put(masterCode, invokeServiceMap);
     }
 
-    private ProcessInvokeService putHandlerMethod(boolean threadSafety, ProcessHandlerService bean, Method handler) {
-        return threadSafety ? new InvocableHandlerMethodThreadSafety(bean, handler) : new InvocableHandlerMethod(bean, handler);
+    private ProcessInvokeService putHandlerMethod(AsyncHandler asyncHandler, ProcessHandlerService bean, Method handler) {
+        if (asyncHandler == null) return new InvocableHandlerMethod(bean, handler);
+        // every keyed method of a bean shares its stripes, so equal keys exclude each other across methods
+        Object[] locks = beanLocks.computeIfAbsent(bean, key -> InvocableHandlerMethodThreadSafety.createLocks());
+        return new InvocableHandlerMethodThreadSafety(bean, handler, asyncHandler.value(), locks);
     }
 
     private Map<Byte, Method> getProcessMethodMap(byte masterCode) {
@@ -0,0 +1,343 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package com.github.chenhao96.component.process.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the {@link HandlerInvoker} of a handler method once, at registration. A small class is
+ * generated per method that calls it with a plain invokevirtual, so the call site is constant and
+ * the JIT can inline the handler into it. The generated code only casts and unboxes the arguments;
+ * when that fails (wrong arity or type, null primitive, a value that needs widening) the call is
+ * handed to {@link Method#invoke}, so its conversions and {@link IllegalArgumentException} are
+ * unchanged. Methods the generated class cannot reach (non-public types) are called by reflection.
+ */
+final class HandlerInvokers {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HandlerInvokers.class);
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+    private static final String OBJECT = "java/lang/Object";
+    private static final String FALLBACK = "fallback";
+    private static final String TARGET = "target";
+
+    private HandlerInvokers() {
+    }
+
+    static HandlerInvoker create(Object bean, Method method) {
+        HandlerInvoker fallback = reflective(bean, method);
+        if (!isAccessible(method) || Modifier.isStatic(method.getModifiers())) return fallback;
+        try {
+            Class<?> type = define(method, generateInvoker(method));
+            return (HandlerInvoker) type.getConstructor(Object.class, HandlerInvoker.class).newInstance(bean, fallback);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            LOGGER.warn("generate invoker fail, {} falls back to reflection.", method.toGenericString(), e);
+            return fallback;
+        }
+    }
+
+    static HandlerInvoker reflective(Object bean, Method method) {
+        ReflectionUtils.makeAccessible(method);
+        return args -> method.invoke(bean, args);
+    }
+
+    static PropertySetter createSetter(Method setter) {
+        ReflectionUtils.makeAccessible(setter);
+        PropertySetter fallback = setter::invoke;
+        if (!isAccessible(setter) || Modifier.isStatic(setter.getModifiers())) return fallback;
+        try {
+            Class<?> type = define(setter, generateSetter(setter));
+            return (PropertySetter) type.getConstructor(PropertySetter.class).newInstance(fallback);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            LOGGER.warn("generate setter fail, {} falls back to reflection.", setter.toGenericString(), e);
+            return fallback;
+        }
+    }
+
+    private static boolean isAccessible(Method method) {
+        if (!Modifier.isPublic(method.getModifiers()) || !isPublic(method.getDeclaringClass())) return false;
+        if (!isPublic(method.getReturnType())) return false;
+        for (Class<?> type : method.getParameterTypes()) {
+            if (!isPublic(type)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isPublic(Class<?> type) {
+        while (type.isArray()) type = type.getComponentType();
+        for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+            if (!current.isPrimitive() && !Modifier.isPublic(current.getModifiers())) return false;
+        }
+        return true;
+    }
+
+    /**
+     * invoke(args): check the arity, cast and unbox every argument, then call the method. A failure
+     * before the call goes to {@code fallback}, a failure of the call itself is wrapped like
+     * {@link Method#invoke} does.
+     */
+    private static byte[] generateInvoker(Method method) {
+        String owner = Type.getInternalName(method.getDeclaringClass());
+        String fallback = Type.getInternalName(HandlerInvoker.class);
+        String fallbackDesc = Type.getDescriptor(HandlerInvoker.class);
+        String name = className(method);
+        Class<?>[] parameterTypes = method.getParameterTypes();
+
+        ClassWriter writer = classWriter();
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, name, null, OBJECT, new String[]{fallback});
+        writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, TARGET, "L" + owner + ";", null, null).visitEnd();
+        writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, FALLBACK, fallbackDesc, null, null).visitEnd();
+
+        MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "(Ljava/lang/Object;" + fallbackDesc + ")V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitVarInsn(Opcodes.ALOAD, 1);
+        init.visitTypeInsn(Opcodes.CHECKCAST, owner);
+        init.visitFieldInsn(Opcodes.PUTFIELD, name, TARGET, "L" + owner + ";");
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitVarInsn(Opcodes.ALOAD, 2);
+        init.visitFieldInsn(Opcodes.PUTFIELD, name, FALLBACK, fallbackDesc);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC, "invoke", "([Ljava/lang/Object;)Ljava/lang/Object;", null, new String[]{"java/lang/Exception"});
+        mv.visitCode();
+        Label prepare = new Label();
+        Label toFallback = new Label();
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        if (parameterTypes.length == 0) {
+            // Method.invoke accepts null for no arguments
+            mv.visitJumpInsn(Opcodes.IFNULL, prepare);
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitInsn(Opcodes.ARRAYLENGTH);
+            mv.visitJumpInsn(Opcodes.IFNE, toFallback);
+        } else {
+            mv.visitJumpInsn(Opcodes.IFNULL, toFallback);
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitInsn(Opcodes.ARRAYLENGTH);
+            pushInt(mv, parameterTypes.length);
+            mv.visitJumpInsn(Opcodes.IF_ICMPNE, toFallback);
+        }
+        mv.visitLabel(prepare);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, name, TARGET, "L" + owner + ";");
+        for (int i = 0; i < parameterTypes.length; i++) {
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            pushInt(mv, i);
+            mv.visitInsn(Opcodes.AALOAD);
+            unbox(mv, parameterTypes[i]);
+        }
+        Label call = new Label();
+        Label called = new Label();
+        mv.visitLabel(call);
+        invoke(mv, method, owner);
+        mv.visitLabel(called);
+        box(mv, method.getReturnType());
+        mv.visitInsn(Opcodes.ARETURN);
+
+        Label prepareFailed = new Label();
+        mv.visitLabel(prepareFailed);
+        mv.visitInsn(Opcodes.POP);
+        mv.visitLabel(toFallback);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, name, FALLBACK, fallbackDesc);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, fallback, "invoke", "([Ljava/lang/Object;)Ljava/lang/Object;", true);
+        mv.visitInsn(Opcodes.ARETURN);
+
+        Label callFailed = new Label();
+        mv.visitLabel(callFailed);
+        wrapAndThrow(mv);
+
+        mv.visitTryCatchBlock(prepare, call, prepareFailed, "java/lang/RuntimeException");
+        mv.visitTryCatchBlock(call, called, callFailed, "java/lang/Throwable");
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * set(bean, value): the same shape as the invoker, with the bean passed in instead of bound.
+     */
+    private static byte[] generateSetter(Method setter) {
+        String owner = Type.getInternalName(setter.getDeclaringClass());
+        String fallback = Type.getInternalName(PropertySetter.class);
+        String fallbackDesc = Type.getDescriptor(PropertySetter.class);
+        String name = className(setter);
+
+        ClassWriter writer = classWriter();
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, name, null, OBJECT, new String[]{fallback});
+        writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, FALLBACK, fallbackDesc, null, null).visitEnd();
+
+        MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "(" + fallbackDesc + ")V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitVarInsn(Opcodes.ALOAD, 1);
+        init.visitFieldInsn(Opcodes.PUTFIELD, name, FALLBACK, fallbackDesc);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC, "set", "(Ljava/lang/Object;Ljava/lang/Object;)V", null, new String[]{"java/lang/Exception"});
+        mv.visitCode();
+        Label prepare = new Label();
+        mv.visitLabel(prepare);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, owner);
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        unbox(mv, setter.getParameterTypes()[0]);
+        Label call = new Label();
+        Label called = new Label();
+        mv.visitLabel(call);
+        invoke(mv, setter, owner);
+        mv.visitLabel(called);
+        if (setter.getReturnType() != void.class) {
+            mv.visitInsn(Type.getType(setter.getReturnType()).getSize() == 2 ? Opcodes.POP2 : Opcodes.POP);
+        }
+        mv.visitInsn(Opcodes.RETURN);
+
+        Label prepareFailed = new Label();
+        mv.visitLabel(prepareFailed);
+        mv.visitInsn(Opcodes.POP);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, name, FALLBACK, fallbackDesc);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, fallback, "set", "(Ljava/lang/Object;Ljava/lang/Object;)V", true);
+        mv.visitInsn(Opcodes.RETURN);
+
+        Label callFailed = new Label();
+        mv.visitLabel(callFailed);
+        wrapAndThrow(mv);
+
+        mv.visitTryCatchBlock(prepare, call, prepareFailed, "java/lang/RuntimeException");
+        mv.visitTryCatchBlock(call, called, callFailed, "java/lang/Throwable");
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static ClassWriter classWriter() {
+        return new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // only the caught exceptions meet in the handlers, and they are never used as more than an Object
+                return OBJECT;
+            }
+        };
+    }
+
+    private static String className(Method method) {
+        return Type.getInternalName(HandlerInvokers.class) + "$" + method.getDeclaringClass().getSimpleName()
+                + "$" + method.getName() + "$" + CLASS_COUNTER.incrementAndGet();
+    }
+
+    private static void invoke(MethodVisitor mv, Method method, String owner) {
+        boolean isInterface = method.getDeclaringClass().isInterface();
+        mv.visitMethodInsn(isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL, owner,
+                method.getName(), Type.getMethodDescriptor(method), isInterface);
+    }
+
+    private static void wrapAndThrow(MethodVisitor mv) {
+        mv.visitVarInsn(Opcodes.ASTORE, 2);
+        mv.visitTypeInsn(Opcodes.NEW, "java/lang/reflect/InvocationTargetException");
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/reflect/InvocationTargetException", "<init>", "(Ljava/lang/Throwable;)V", false);
+        mv.visitInsn(Opcodes.ATHROW);
+    }
+
+    private static void unbox(MethodVisitor mv, Class<?> type) {
+        if (!type.isPrimitive()) {
+            if (type != Object.class) mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+            return;
+        }
+        // a null or a different box type fails here and takes the reflective path
+        Class<?> boxType = ClassUtils.resolvePrimitiveIfNecessary(type);
+        String boxName = Type.getInternalName(boxType);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, boxName);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, boxName, type.getName() + "Value", "()" + Type.getDescriptor(type), false);
+    }
+
+    private static void box(MethodVisitor mv, Class<?> type) {
+        if (type == void.class) {
+            mv.visitInsn(Opcodes.ACONST_NULL);
+        } else if (type.isPrimitive()) {
+            Class<?> boxType = ClassUtils.resolvePrimitiveIfNecessary(type);
+            String boxName = Type.getInternalName(boxType);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, boxName, "valueOf", "(" + Type.getDescriptor(type) + ")L" + boxName + ";", false);
+        }
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, value);
+        } else {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        }
+    }
+
+    private static Class<?> define(Method method, byte[] bytes) {
+        ClassLoader parent = method.getDeclaringClass().getClassLoader();
+        InvokerClassLoader loader = new InvokerClassLoader(parent == null ? HandlerInvokers.class.getClassLoader() : parent);
+        return loader.define(bytes);
+    }
+
+    /**
+     * Sees the handler's classes through its parent and the framework's through this class's loader,
+     * which may not be the same in containers that load the application separately.
+     */
+    private static final class InvokerClassLoader extends ClassLoader {
+
+        private InvokerClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            return HandlerInvokers.class.getClassLoader().loadClass(name);
+        }
+
+        private Class<?> define(byte[] bytes) {
+            return defineClass(null, bytes, 0, bytes.length);
+        }
+    }
+}
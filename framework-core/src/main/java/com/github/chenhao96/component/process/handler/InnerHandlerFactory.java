@@ -16,6 +16,7 @@
 
 package com.github.chenhao96.component.process.handler;
 
+import com.github.chenhao96.component.process.AsyncHandler;
 import com.github.chenhao96.component.process.ProcessHandlerService;
 
 import java.lang.reflect.Method;
@@ -24,5 +25,8 @@ public interface InnerHandlerFactory {
 
     void addHandlerStop();
 
-    void addHandler(byte masterCode, byte slaveCode, ProcessHandlerService bean, Method handler, boolean threadSafety);
+    /**
+     * @param asyncHandler how calls are serialized, {@code null} lets them run in parallel
+     */
+    void addHandler(byte masterCode, byte slaveCode, ProcessHandlerService bean, Method handler, AsyncHandler asyncHandler);
 }
@@ -17,20 +17,47 @@ package com.github.chenhao96.component.process.handler;
 
 import com.github.chenhao96.component.process.ProcessHandlerService;
 import com.github.chenhao96.component.process.ProcessInvokeService;
+import com.github.chenhao96.utils.StringUtil;
 import com.github.chenhao96.utils.mapper.Jackson2FlatMapperK;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.util.Map;
 
 public class InvocableHandlerMethod implements ProcessInvokeService {
 
     private ProcessHandlerService bean;
+    private String[] parameterNames;
+    private Type[] parameterTypes;
     private InvocableHandlerMethodK invocableHandlerMethodK;
+    private HandlerInvoker invoker;
     private static final Jackson2FlatMapperK jackson2FlatMapper = new Jackson2FlatMapperK();
+    private static final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
     public InvocableHandlerMethod(ProcessHandlerService bean, Method method) {
         this.bean = bean;
         this.invocableHandlerMethodK = new InvocableHandlerMethodK(bean, method);
+        this.invoker = HandlerInvokers.create(bean, invocableHandlerMethodK.getBridgedMethod());
+        initParameters(invocableHandlerMethodK.getMethodParameters());
+    }
+
+    private void initParameters(MethodParameter[] parameters) {
+        this.parameterNames = new String[parameters.length];
+        this.parameterTypes = new Type[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            MethodParameter parameter = parameters[i];
+            parameter.initParameterNameDiscovery(parameterNameDiscoverer);
+            MapParameter mapParameter = parameter.getParameterAnnotation(MapParameter.class);
+            if (mapParameter != null && StringUtil.isNotEmpty(mapParameter.value())) {
+                this.parameterNames[i] = mapParameter.value();
+            } else {
+                this.parameterNames[i] = parameter.getParameterName();
+            }
+            this.parameterTypes[i] = parameter.getGenericParameterType();
+        }
     }
 
     public ProcessHandlerService getBean() {
@@ -42,10 +69,34 @@ public class InvocableHandlerMethod implements ProcessInvokeService {
         return invocableHandlerMethodK.isVoid();
     }
 
+    @Override
+    public String[] getParameterNames() {
+        return parameterNames;
+    }
+
+    @Override
+    public Type[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    @Override
+    public Object invokeProcess(Object[] args) throws Exception {
+        return doInvoke(args);
+    }
+
     @Override
     public Object invokeProcess(Map<String, Object> providedArgs) throws Exception {
         providedArgs = jackson2FlatMapper.fromFlatMapper(providedArgs);
         Object[] args = invocableHandlerMethodK.getMethodArgumentValues(providedArgs);
-        return invocableHandlerMethodK.getBridgedMethod().invoke(bean, args);
+        return doInvoke(args);
+    }
+
+    protected Object doInvoke(Object[] args) throws Exception {
+        return invoker.invoke(args);
+    }
+
+    @Override
+    public String toString() {
+        return invocableHandlerMethodK.toString();
     }
 }
@@ -15,20 +15,26 @@
  */
 package com.github.chenhao96.component.process.handler
 
-import com.github.chenhao96.component.process.handler.BaseDataTypeUtil
+import com.fasterxml.jackson.databind.ObjectReader
+import com.fasterxml.jackson.databind.util.TokenBuffer
 import com.github.chenhao96.utils.JsonUtils
 import com.github.chenhao96.utils.StringUtil
 import org.springframework.beans.BeanUtils
 import org.springframework.core.DefaultParameterNameDiscoverer
 import org.springframework.core.MethodParameter
 import org.springframework.core.ParameterNameDiscoverer
-import org.springframework.util.CollectionUtils
 import java.beans.Introspector
+import java.lang.reflect.Constructor
 import java.lang.reflect.Method
+import java.lang.reflect.Modifier
 
+/**
+ * Resolves everything argument binding needs once, when the handler is registered: parameter names,
+ * box types, converters, property setters. Each invocation only runs the resulting plan.
+ */
 class InvocableHandlerMethodK(bean: Any, method: Method) : HandlerMethod(bean, method) {
 
-    private val parameterNameDiscoverer: ParameterNameDiscoverer = DefaultParameterNameDiscoverer()
+    private val bindings: Array<ParameterBinding> = Array(methodParameters.size) { ParameterBinding(methodParameters[it]) }
 
     fun isReturnVoid(): Boolean {
         return isVoid
@@ -36,107 +42,178 @@ class InvocableHandlerMethodK(bean: Any, method: Method) : HandlerMethod(bean, m
 
     @Throws(Exception::class)
     fun getMethodArgumentValues(providedArgs: Map<String, Any>?): Array<Any?> {
-        val parameters = methodParameters
-        val args = arrayOfNulls<Any>(parameters.size)
-        for (index in parameters.indices) {
-            val parameter = parameters[index]
+        val args = arrayOfNulls<Any>(bindings.size)
+        for (index in bindings.indices) {
+            args[index] = bindings[index].resolve(providedArgs)
+        }
+        return args
+    }
+
+    private class ParameterBinding(private val parameter: MethodParameter) {
+
+        private val name: String?
+        private val boxType: Class<*>
+        private val mapPrefix: String?
+        private val required: Boolean
+        private val binder: ArgumentBinder?
+
+        init {
             parameter.initParameterNameDiscovery(parameterNameDiscoverer)
-            args[index] = resolveProvidedArgument(parameter, providedArgs)
-            if (args[index] != null) continue
-            if (supportsParameter(parameter)) {
-                try {
-                    args[index] = resolveArgument(parameter, providedArgs)
-                } catch (ex: Exception) {
-                    throw Exception(getArgumentResolutionErrorMessage(parameter, "Failed to resolve"), ex)
+            val parameterType = parameter.parameterType
+            name = parameter.parameterName
+            boxType = BaseDataTypeUtil.baseDataType2BoxDataType(parameterType)
+            val mapParameter = parameter.getParameterAnnotation(MapParameter::class.java)
+            mapPrefix = if (mapParameter == null || StringUtil.isEmpty(mapParameter.value)) null else mapParameter.value
+            required = BaseDataTypeUtil.isBaseDataType(parameterType)
+            binder = when {
+                BeanUtils.isSimpleProperty(parameterType) -> null
+                parameterType.isInterface -> ConvertBinder(readerFor(parameterType))
+                else -> {
+                    val constructor = defaultConstructor(parameterType)
+                    when {
+                        constructor == null -> NoneBinder
+                        Collection::class.java.isAssignableFrom(parameterType) -> SafeBinder(ConvertBinder(readerFor(parameterType)))
+                        else -> try {
+                            BeanBinder(constructor)
+                        } catch (e: Exception) {
+                            NoneBinder
+                        }
+                    }
                 }
             }
-            if (args[index] == null && BaseDataTypeUtil.isBaseDataType(parameter.parameterType)) {
+        }
+
+        @Throws(Exception::class)
+        fun resolve(providedArgs: Map<String, Any>?): Any? {
+            var value = resolveProvidedArgument(providedArgs)
+            if (value == null && binder != null && providedArgs != null && name != null) {
+                val parameterValue = providedArgs[name]
+                if (parameterValue != null) {
+                    try {
+                        value = binder.bind(parameterValue, providedArgs)
+                    } catch (ex: Exception) {
+                        throw Exception(getArgumentResolutionErrorMessage("Failed to resolve"), ex)
+                    }
+                }
+            }
+            if (value == null && required) {
                 throw IllegalStateException(String.format("Could not resolve method parameter at index %d in %s: %s",
                         parameter.parameterIndex, parameter.method.toGenericString(),
-                        getArgumentResolutionErrorMessage(parameter, "No suitable resolver for")))
+                        getArgumentResolutionErrorMessage("No suitable resolver for")))
             }
+            return value
         }
-        return args
-    }
 
-    @Throws(Exception::class)
-    private fun resolveArgument(parameter: MethodParameter, providedArgs: Map<String, Any>?): Any? {
-        if (providedArgs == null) return null
-        val parameterName = parameter.parameterName
-        val parameterValue = providedArgs[parameterName] ?: return null
-        if (parameter.parameterType.isInterface) {
-            return JsonUtils.jsonStr2ObjectStatic(JsonUtils.object2JsonStatic(parameterValue), parameter.parameterType)
+        private fun resolveProvidedArgument(providedArgs: Map<String, Any>?): Any? {
+            if (providedArgs == null) return null
+            if (boxType.isInstance(providedArgs)) {
+                return if (mapPrefix == null) null else providedArgs[mapPrefix] as? Map<*, *>
+            }
+            val value = providedArgs[name ?: return null] ?: return null
+            return if (boxType.isInstance(value)) value else null
         }
-        try {
-            val inputBean = BeanUtils.instantiateClass(parameter.parameterType)
-            return paramBind(inputBean, parameterValue, providedArgs)
-        } catch (e: Exception) {
-            return null
+
+        private fun getArgumentResolutionErrorMessage(text: String): String {
+            return String.format("%s argument %d of type '%s'", text, parameter.parameterIndex, parameter.parameterType.name)
         }
     }
 
-    @Throws(Exception::class)
-    private fun paramBind(inputBean: Any, parameterValue: Any, providedArgs: Map<String, Any>): Any {
-        var resultBean = inputBean
-        if (resultBean is Collection<Any?>) {
-            resultBean = JsonUtils.jsonStr2ObjectStatic(JsonUtils.object2JsonStatic(parameterValue), resultBean.javaClass)
-        } else {
-            val beanInfo = Introspector.getBeanInfo(resultBean.javaClass)
-            val propertyDescriptors = beanInfo.propertyDescriptors
-            for (property in propertyDescriptors) {
-                val propertyName = property.name
-                if (propertyName == "class") continue
-                val setter = property.writeMethod
-                var value: Any? = providedArgs[propertyName] ?: continue
-                val parameterType = setter.parameterTypes[0]
-                if (!parameterType.isInstance(value)) {
-                    value = JsonUtils.jsonStr2ObjectStatic(JsonUtils.object2JsonStatic(value), parameterType)
-                }
-                setter.invoke(resultBean, value)
-            }
-        }
-        return resultBean
+    private interface ArgumentBinder {
+        @Throws(Exception::class)
+        fun bind(parameterValue: Any, providedArgs: Map<String, Any>): Any?
     }
 
-    private fun getArgumentResolutionErrorMessage(parameter: MethodParameter, text: String): String {
-        parameter.parameterType
-        val paramType = parameter.parameterType
-        return String.format("%s argument %d of type '%s'", text, parameter.parameterIndex, paramType.name)
+    private object NoneBinder : ArgumentBinder {
+        override fun bind(parameterValue: Any, providedArgs: Map<String, Any>): Any? = null
     }
 
-    private fun supportsParameter(parameter: MethodParameter): Boolean {
-        return !BeanUtils.isSimpleProperty(parameter.parameterType)
+    private class ConvertBinder(private val reader: ObjectReader) : ArgumentBinder {
+        override fun bind(parameterValue: Any, providedArgs: Map<String, Any>): Any? = convert(parameterValue, reader)
     }
 
-    private fun resolveProvidedArgument(parameter: MethodParameter, providedArgs: Map<String, Any>?): Any? {
-        if (providedArgs == null) return null
-        val parameterName = parameter.parameterName
-        val parameterType = BaseDataTypeUtil.baseDataType2BoxDataType(parameter.parameterType)
-        val entries = providedArgs.entries
-        if (parameterType.isInstance(providedArgs)) {
-            val mapParameter = parameter.getParameterAnnotation(MapParameter::class.java)
-            if (mapParameter == null || StringUtil.isEmpty(mapParameter.value)) return null
-            return processMapParameter(mapParameter.value, entries)
+    private class SafeBinder(private val delegate: ArgumentBinder) : ArgumentBinder {
+        override fun bind(parameterValue: Any, providedArgs: Map<String, Any>): Any? {
+            return try {
+                delegate.bind(parameterValue, providedArgs)
+            } catch (e: Exception) {
+                null
+            }
         }
-        for (entry in entries) {
-            if (parameterName == entry.key) {
-                if (parameterType.isInstance(entry.value)) {
-                    return entry.value
+    }
+
+    /**
+     * Fills a new bean from the top level of the provided arguments, a value of the wrong type goes through
+     * the property's reader. Any failure leaves the argument unresolved.
+     */
+    private class BeanBinder(private val constructor: Constructor<*>) : ArgumentBinder {
+
+        private val properties: Array<PropertyBinding> = Introspector.getBeanInfo(constructor.declaringClass).propertyDescriptors
+                .filter { it.name != "class" }
+                .map { PropertyBinding(it.name, it.writeMethod) }
+                .toTypedArray()
+
+        override fun bind(parameterValue: Any, providedArgs: Map<String, Any>): Any? {
+            try {
+                val bean = BeanUtils.instantiateClass(constructor)
+                for (property in properties) {
+                    if (!property.bind(bean, providedArgs)) return null
                 }
+                return bean
+            } catch (e: Exception) {
+                return null
+            }
+        }
+    }
+
+    private class PropertyBinding(private val name: String, writeMethod: Method?) {
+
+        private val setter: PropertySetter? = if (writeMethod == null) null else HandlerInvokers.createSetter(writeMethod)
+        private val boxType: Class<*>? = if (writeMethod == null) null else BaseDataTypeUtil.baseDataType2BoxDataType(writeMethod.parameterTypes[0])
+        private val reader: ObjectReader? = if (writeMethod == null) null else readerFor(writeMethod.parameterTypes[0])
+
+        /**
+         * @return false when a value was provided for a property that cannot be written
+         */
+        @Throws(Exception::class)
+        fun bind(bean: Any, providedArgs: Map<String, Any>): Boolean {
+            var value: Any? = providedArgs[name] ?: return true
+            if (setter == null) return false
+            if (!boxType!!.isInstance(value)) {
+                value = convert(value!!, reader!!)
             }
+            setter.set(bean, value)
+            return true
         }
-        return null
     }
 
-    @Suppress("UNCHECKED_CAST")
-    private fun processMapParameter(prefix: String, entries: Set<Map.Entry<String, Any>>): Map<String, Any>? {
-        if (CollectionUtils.isEmpty(entries)) return null
-        for (entry in entries) {
-            val key = entry.key
-            if (key == prefix) {
-                return entry.value as? Map<String, Any>
+    companion object {
+
+        private val parameterNameDiscoverer: ParameterNameDiscoverer = DefaultParameterNameDiscoverer()
+
+        private fun readerFor(type: Class<*>): ObjectReader {
+            return JsonUtils.getMapperStatic().readerFor(type)
+        }
+
+        /**
+         * Re-reads the value as the reader's type through a {@link TokenBuffer} instead of JSON bytes.
+         */
+        @Throws(Exception::class)
+        private fun convert(value: Any, reader: ObjectReader): Any? {
+            val mapper = JsonUtils.getMapperStatic()
+            val buffer = TokenBuffer(mapper, false)
+            mapper.writeValue(buffer, value)
+            buffer.asParser(mapper).use { parser ->
+                return reader.readValue<Any>(parser)
+            }
+        }
+
+        private fun defaultConstructor(type: Class<*>): Constructor<*>? {
+            if (type.isInterface || Modifier.isAbstract(type.modifiers)) return null
+            return try {
+                type.getDeclaredConstructor()
+            } catch (e: NoSuchMethodException) {
+                null
             }
         }
-        return null
     }
-}
\ No newline at end of file
+}
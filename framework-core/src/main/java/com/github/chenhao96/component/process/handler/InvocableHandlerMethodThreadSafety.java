@@ -16,20 +16,90 @@
 
 package com.github.chenhao96.component.process.handler;
 
+import com.github.chenhao96.component.net.SocketConnectionUtil;
+import com.github.chenhao96.component.process.AsyncHandler;
 import com.github.chenhao96.component.process.ProcessHandlerService;
+import com.github.chenhao96.utils.StringUtil;
+import org.springframework.util.Assert;
 
 import java.lang.reflect.Method;
-import java.util.Map;
 
+/**
+ * Serializes the calls of an {@link AsyncHandler}: on the bean without a key, otherwise on one of a fixed
+ * set of striped locks chosen by the key, so calls for different players run in parallel. The stripes
+ * are shared by all keyed methods of a bean, see {@link #createLocks()}. Arguments are bound before the
+ * lock is taken.
+ */
 public class InvocableHandlerMethodThreadSafety extends InvocableHandlerMethod {
+
+    private static final int LOCK_STRIPES = 256;
+
+    private final String serialKey;
+    private final boolean perConnection;
+    private final int keyIndex;
+    private final Object[] locks;
+
     public InvocableHandlerMethodThreadSafety(ProcessHandlerService bean, Method method) {
+        this(bean, method, "");
+    }
+
+    public InvocableHandlerMethodThreadSafety(ProcessHandlerService bean, Method method, String serialKey) {
+        this(bean, method, serialKey, StringUtil.isEmpty(serialKey) ? null : createLocks());
+    }
+
+    /**
+     * @param locks stripes from {@link #createLocks()}, pass the same array to every method of the bean
+     *              whose calls must exclude each other for equal keys
+     */
+    public InvocableHandlerMethodThreadSafety(ProcessHandlerService bean, Method method, String serialKey, Object[] locks) {
         super(bean, method);
+        if (StringUtil.isEmpty(serialKey)) {
+            this.serialKey = "";
+            this.perConnection = false;
+            this.keyIndex = -1;
+            this.locks = null;
+            return;
+        }
+        this.serialKey = serialKey;
+        this.perConnection = AsyncHandler.CONNECTION.equals(serialKey);
+        this.keyIndex = perConnection ? -1 : parameterIndex(serialKey);
+        Assert.isTrue(perConnection || keyIndex >= 0, "AsyncHandler key '" + serialKey + "' is not a parameter of " + method.toGenericString());
+        Assert.isTrue(locks != null && locks.length == LOCK_STRIPES, "AsyncHandler locks must come from createLocks()");
+        this.locks = locks;
+    }
+
+    public static Object[] createLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    private int parameterIndex(String name) {
+        String[] parameterNames = getParameterNames();
+        for (int i = 0; i < parameterNames.length; i++) {
+            if (name.equals(parameterNames[i])) return i;
+        }
+        return -1;
     }
 
     @Override
-    public Object invokeProcess(Map<String, Object> args) throws Exception {
-        synchronized (getBean()) {
-            return super.invokeProcess(args);
+    public String getSerialKey() {
+        return serialKey;
+    }
+
+    @Override
+    protected Object doInvoke(Object[] args) throws Exception {
+        synchronized (lockOf(args)) {
+            return super.doInvoke(args);
         }
     }
+
+    private Object lockOf(Object[] args) {
+        if (locks == null) return getBean();
+        Object key = perConnection ? SocketConnectionUtil.getChannelHandlerContext() : args[keyIndex];
+        int hash = key == null ? 0 : key.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
 }
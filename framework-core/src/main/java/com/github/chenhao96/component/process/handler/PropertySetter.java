@@ -0,0 +1,27 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.process.handler;
+
+/**
+ * Writes one bean property, resolved from its setter at registration.
+ * Public only so the classes generated by {@link HandlerInvokers} can implement it.
+ */
+public interface PropertySetter {
+
+    void set(Object bean, Object value) throws Exception;
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.socket;
+
+/**
+ * Creates the thread serving one connection in thread-per-connection mode. This is the
+ * platform thread version, the multi-release jar replaces it with virtual threads on JDK 21+.
+ */
+final class ConnectionThreads {
+
+    private ConnectionThreads() {
+    }
+
+    static boolean isVirtual() {
+        return false;
+    }
+
+    static Thread newThread(ThreadGroup group, Runnable task, String name) {
+        Thread thread = new Thread(group, task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
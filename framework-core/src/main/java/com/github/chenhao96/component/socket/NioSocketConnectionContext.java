@@ -0,0 +1,267 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.socket;
+
+import com.github.chenhao96.component.net.CommonsMessage;
+import com.github.chenhao96.component.net.ConnectionCloseProcess;
+import com.github.chenhao96.component.net.ConnectionHandshake;
+import com.github.chenhao96.component.net.DefaultConnectionContext;
+import com.github.chenhao96.component.net.MessageConvertToHandlerArgs;
+import com.github.chenhao96.component.net.checksum.FrameChecksum;
+import com.github.chenhao96.component.net.checksum.FrameChecksums;
+import com.github.chenhao96.component.net.compress.FrameCompressor;
+import com.github.chenhao96.component.net.compress.FrameCompressors;
+import com.github.chenhao96.model.ConfigProperty;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A connection served by a {@link NioSocketReactor}, {@link #receiveMessage()} never blocks,
+ * it only parses the frames the reactor has already read into the connection's buffer.
+ */
+public class NioSocketConnectionContext extends DefaultConnectionContext implements SocketConnectionContext {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NioSocketConnectionContext.class);
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private final SocketChannel channel;
+    private final SelectionKey selectionKey;
+    private final NioSocketReactor reactor;
+    private final int connectionPort;
+    private final String connectionIp;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+    private final List<ConnectionCloseProcess> closeProcesses = new CopyOnWriteArrayList<>();
+    private MessageConvertToHandlerArgs messageConvertToHandlerArgs;
+
+    /**
+     * Frames are sliced out of this buffer without copying, the decoded messages keep it alive
+     * until they are released.
+     */
+    private ByteBuf readBuffer = Unpooled.buffer(INITIAL_BUFFER_SIZE);
+    private volatile long lastReadTime = System.currentTimeMillis();
+    private long lastHeartbeatTime;
+    private volatile FrameChecksum checksum = FrameChecksums.LEGACY;
+    private volatile FrameCompressor compressor;
+    private final int compressThreshold = ConfigProperty.getCompressThreshold();
+    private final int maxFrameLength = ConfigProperty.getMaxFrameLength();
+
+    NioSocketConnectionContext(NioSocketReactor reactor, SocketChannel channel, SelectionKey selectionKey) throws IOException {
+        Assert.notNull(channel, "SocketChannel is required!");
+        this.reactor = reactor;
+        this.channel = channel;
+        this.selectionKey = selectionKey;
+        InetSocketAddress socketAddress = (InetSocketAddress) channel.getRemoteAddress();
+        this.connectionPort = socketAddress.getPort();
+        this.connectionIp = socketAddress.getHostString();
+    }
+
+    public void setMessageConvertToHandlerArgs(MessageConvertToHandlerArgs messageConvertToHandlerArgs) {
+        this.messageConvertToHandlerArgs = messageConvertToHandlerArgs;
+    }
+
+    long getLastReadTime() {
+        return lastReadTime;
+    }
+
+    void touch(long time) {
+        lastReadTime = time;
+    }
+
+    long getLastHeartbeatTime() {
+        return lastHeartbeatTime;
+    }
+
+    void heartbeatSent(long time) {
+        lastHeartbeatTime = time;
+    }
+
+    int readFromChannel() throws IOException {
+        readBuffer.ensureWritable(1);
+        int count = readBuffer.writeBytes(channel, readBuffer.writableBytes());
+        if (count > 0) lastReadTime = System.currentTimeMillis();
+        return count;
+    }
+
+    @Override
+    public CommonsMessage receiveMessage() throws IOException {
+        while (!isClose()) {
+            CommonsMessage message = nextFrame();
+            if (message == null) {
+                discardReadFrames();
+                return null;
+            }
+            if (ConnectionHandshake.isHandshake(message)) {
+                ConnectionHandshake handshake = ConnectionHandshake.negotiate(message);
+                message.release();
+                sendMessage(handshake.createReply());
+                checksum = handshake.getChecksum();
+                compressor = handshake.getCompressor();
+                continue;
+            }
+            try {
+                return FrameCompressors.decompress(message, compressor, maxFrameLength);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("decompress", e);
+            }
+        }
+        return null;
+    }
+
+    private CommonsMessage nextFrame() throws IOException {
+        while (readBuffer.readableBytes() >= CommonsMessage.HEAD_LENGTH) {
+            int position = readBuffer.readerIndex();
+            if (!CommonsMessage.isBodyHead(readBuffer.getShort(position))) {
+                throw new IOException("byteBuf bodyHead is fail!");
+            }
+            long frameLength = CommonsMessage.frameLength(readBuffer.getInt(position + Short.BYTES));
+            if (frameLength > maxFrameLength) {
+                throw new IOException("frame length " + frameLength + " exceeds " + maxFrameLength);
+            }
+            if (readBuffer.readableBytes() < frameLength) {
+                readBuffer.ensureWritable((int) frameLength - readBuffer.readableBytes());
+                return null;
+            }
+
+            ByteBuf frame = readBuffer.readSlice((int) frameLength);
+            try {
+                return CommonsMessage.createMessageByByteBuf(frame, checksum);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("decode", e);
+            }
+        }
+        return null;
+    }
+
+    private void discardReadFrames() {
+        if (readBuffer.readerIndex() == 0) return;
+        if (readBuffer.refCnt() == 1) {
+            readBuffer.discardReadBytes();
+            return;
+        }
+        // messages still hold slices of the consumed bytes, move the partial frame to a fresh buffer
+        ByteBuf remaining = Unpooled.buffer(Math.max(INITIAL_BUFFER_SIZE, readBuffer.readableBytes()));
+        remaining.writeBytes(readBuffer);
+        readBuffer.release();
+        readBuffer = remaining;
+    }
+
+    @Override
+    public void sendMessage(CommonsMessage message) {
+        if (message == null || isClose()) return;
+        byte[] buf = CommonsMessage.createByteByMessage(FrameCompressors.compress(message, compressor, compressThreshold), checksum);
+        ByteBuffer buffer = ByteBuffer.wrap(buf);
+        synchronized (outbound) {
+            try {
+                if (outbound.isEmpty()) {
+                    channel.write(buffer);
+                    if (!buffer.hasRemaining()) return;
+                }
+                outbound.add(buffer);
+            } catch (IOException e) {
+                LOGGER.warn("sendMessage", e);
+                reactor.execute(this::closeQuietly);
+                return;
+            }
+        }
+        reactor.execute(this::interestWrite);
+    }
+
+    private void interestWrite() {
+        if (!selectionKey.isValid()) return;
+        synchronized (outbound) {
+            if (outbound.isEmpty()) return;
+        }
+        selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_WRITE);
+    }
+
+    void flushOutbound() throws IOException {
+        synchronized (outbound) {
+            ByteBuffer buffer;
+            while ((buffer = outbound.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) return;
+                outbound.poll();
+            }
+        }
+        selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_WRITE);
+    }
+
+    @Override
+    public void sendMessage(Object message) {
+        if (message == null || isClose()) return;
+        Assert.notNull(messageConvertToHandlerArgs, "MessageConvertToHandlerArgs is required!");
+        sendMessage(messageConvertToHandlerArgs.convertMessageReturn(message));
+    }
+
+    @Override
+    public boolean isClose() {
+        return !channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed.compareAndSet(false, true)) return;
+        try {
+            for (ConnectionCloseProcess closeProcess : closeProcesses) {
+                closeProcess.process(this);
+            }
+        } finally {
+            selectionKey.cancel();
+            channel.close();
+        }
+    }
+
+    void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            LOGGER.warn("close connection fail.", e);
+        }
+    }
+
+    @Override
+    public void addCloseProcess(ConnectionCloseProcess process) {
+        if (process == null) return;
+        closeProcesses.add(process);
+    }
+
+    @Override
+    public String getConnectionIp() {
+        return connectionIp;
+    }
+
+    @Override
+    public int getConnectionPort() {
+        return connectionPort;
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.socket;
+
+import com.github.chenhao96.component.net.CommonsMessage;
+import com.github.chenhao96.component.net.MessageConvertToHandlerArgs;
+import com.github.chenhao96.model.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
+
+/**
+ * One selector thread serving many {@link NioSocketConnectionContext}, frames are parsed as soon
+ * as the socket is readable and handed to the dispatcher, idle sockets cost nothing.
+ */
+class NioSocketReactor implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NioSocketReactor.class);
+
+    private static final long IDLE_CHECK_INTERVAL = 1000L;
+
+    private final Selector selector;
+    private final long noDataWaitTime;
+    private final int maxMissedHeartbeats = Math.max(1, ConfigProperty.getMaxMissedHeartbeats());
+    private final boolean tcpNoDelay = ConfigProperty.getSocketTcpNoDelay();
+    private final MessageConvertToHandlerArgs messageConvertToHandlerArgs;
+    private final BiConsumer<SocketConnectionContext, CommonsMessage> dispatcher;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private Thread thread;
+    private int nextReactor;
+    private long lastIdleCheckTime;
+    private boolean readsSuspended;
+    private volatile boolean running;
+
+    NioSocketReactor(BiConsumer<SocketConnectionContext, CommonsMessage> dispatcher,
+                     MessageConvertToHandlerArgs messageConvertToHandlerArgs, long noDataWaitTime) throws IOException {
+        this.selector = Selector.open();
+        this.dispatcher = dispatcher;
+        this.noDataWaitTime = noDataWaitTime;
+        this.messageConvertToHandlerArgs = messageConvertToHandlerArgs;
+    }
+
+    void start(ThreadGroup group, String name) {
+        this.running = true;
+        this.thread = new Thread(group, this, name);
+        this.thread.start();
+    }
+
+    void shutdown() {
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    void join(long millis) throws InterruptedException {
+        if (thread != null) thread.join(millis);
+    }
+
+    void suspendReads() {
+        execute(() -> setReadsSuspended(true));
+    }
+
+    void resumeReads() {
+        execute(() -> setReadsSuspended(false));
+    }
+
+    private void setReadsSuspended(boolean suspended) {
+        readsSuspended = suspended;
+        long now = System.currentTimeMillis();
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid() && key.attachment() instanceof NioSocketConnectionContext) {
+                int ops = key.interestOps();
+                key.interestOps(suspended ? ops & ~SelectionKey.OP_READ : ops | SelectionKey.OP_READ);
+                // the silence while reads were off was ours, not the peer's
+                ((NioSocketConnectionContext) key.attachment()).touch(now);
+            }
+        }
+    }
+
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    void listen(ServerSocketChannel serverChannel, NioSocketReactor[] reactors) {
+        execute(() -> {
+            try {
+                serverChannel.configureBlocking(false);
+                serverChannel.register(selector, SelectionKey.OP_ACCEPT, reactors);
+            } catch (IOException e) {
+                LOGGER.warn("register server channel fail.", e);
+            }
+        });
+    }
+
+    private void register(SocketChannel channel) {
+        execute(() -> {
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, tcpNoDelay);
+                SelectionKey key = channel.register(selector, readsSuspended ? 0 : SelectionKey.OP_READ);
+                NioSocketConnectionContext context = new NioSocketConnectionContext(this, channel, key);
+                context.setMessageConvertToHandlerArgs(messageConvertToHandlerArgs);
+                key.attach(context);
+            } catch (IOException e) {
+                LOGGER.warn("register socket channel fail.", e);
+                closeChannel(channel);
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select(IDLE_CHECK_INTERVAL);
+                runTasks();
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    process(key);
+                }
+                checkIdle();
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (IOException e) {
+                LOGGER.warn("select fail.", e);
+            }
+        }
+        closeAll();
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.warn("reactor task fail.", e);
+            }
+        }
+    }
+
+    private void process(SelectionKey key) {
+        if (!key.isValid()) return;
+        if (key.isAcceptable()) {
+            accept(key);
+            return;
+        }
+        NioSocketConnectionContext context = (NioSocketConnectionContext) key.attachment();
+        if (context == null) return;
+        try {
+            if (key.isWritable()) context.flushOutbound();
+            if (key.isValid() && key.isReadable()) read(context);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.debug("connection {}:{} closed:{}", context.getConnectionIp(), context.getConnectionPort(), e.getMessage());
+            context.closeQuietly();
+        }
+    }
+
+    private void read(NioSocketConnectionContext context) throws IOException {
+        if (context.readFromChannel() < 0) {
+            context.closeQuietly();
+            return;
+        }
+        CommonsMessage message;
+        while ((message = context.receiveMessage()) != null) {
+            dispatcher.accept(context, message);
+        }
+    }
+
+    private void accept(SelectionKey key) {
+        ServerSocketChannel serverChannel = (ServerSocketChannel) key.channel();
+        NioSocketReactor[] reactors = (NioSocketReactor[]) key.attachment();
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                reactors[nextReactor].register(channel);
+                nextReactor = (nextReactor + 1) % reactors.length;
+            }
+        } catch (IOException e) {
+            LOGGER.warn("serverSocket accept exception.", e);
+        }
+    }
+
+    private void checkIdle() {
+        long now = System.currentTimeMillis();
+        if (now - lastIdleCheckTime < IDLE_CHECK_INTERVAL) return;
+        lastIdleCheckTime = now;
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (!(attachment instanceof NioSocketConnectionContext)) continue;
+            NioSocketConnectionContext context = (NioSocketConnectionContext) attachment;
+            if (readsSuspended) {
+                context.touch(now);
+                continue;
+            }
+            long idle = now - context.getLastReadTime();
+            if (idle >= noDataWaitTime * maxMissedHeartbeats) {
+                LOGGER.info("connection {}:{} missed {} heartbeats, close it.", context.getConnectionIp(),
+                        context.getConnectionPort(), maxMissedHeartbeats);
+                context.closeQuietly();
+            } else if (idle >= noDataWaitTime && now - context.getLastHeartbeatTime() >= noDataWaitTime) {
+                context.sendMessage(new CommonsMessage(CommonsMessage.CONTROL_MASTER_CODE, CommonsMessage.HEARTBEAT_SLAVE_CODE));
+                context.heartbeatSent(now);
+            }
+        }
+    }
+
+    private void closeAll() {
+        runTasks();
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (attachment instanceof NioSocketConnectionContext) {
+                ((NioSocketConnectionContext) attachment).closeQuietly();
+            } else {
+                closeChannel(key.channel());
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOGGER.warn("close selector fail.", e);
+        }
+    }
+
+    private static void closeChannel(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("close channel fail.", e);
+        }
+    }
+}
@@ -17,10 +17,15 @@
 package com.github.chenhao96.component.socket;
 
 import com.github.chenhao96.component.ComponentService;
+import com.github.chenhao96.component.executor.InFlightCounter;
 import com.github.chenhao96.component.executor.TaskExecutorService;
 import com.github.chenhao96.component.net.CommonsMessage;
+import com.github.chenhao96.component.net.CommonsMessageEnvelope;
 import com.github.chenhao96.component.net.DefaultMessageConvertToHandlerArgs;
+import com.github.chenhao96.component.net.EnvelopeHandlerTask;
 import com.github.chenhao96.component.net.MessageConvertToHandlerArgs;
+import com.github.chenhao96.component.net.ReleasableTask;
+import com.github.chenhao96.component.net.SerialTask;
 import com.github.chenhao96.component.net.SocketHandlerTask;
 import com.github.chenhao96.component.process.ProcessInvokeService;
 import com.github.chenhao96.component.process.handler.HandlerFactory;
@@ -32,25 +37,47 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.Resource;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.ServerSocketChannel;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ServerSocketComponent implements ComponentService {
 
     private static final String COMPONENT_NAME = "ServerSocketComponent";
+
+    public static final String POLLING_MODE = "polling";
+    public static final String NIO_MODE = "nio";
+    public static final String THREAD_MODE = "thread";
     private static final Logger LOGGER = LoggerFactory.getLogger(ServerSocketComponent.class);
 
     private int processors;
     private int socketPort;
+    private String mode;
     private Thread[] slackList;
     private long noDataWaitTime;
     private boolean initialize;
     private volatile boolean started;
+    private volatile boolean accepting;
+    private volatile boolean suspended;
+    private final Object suspendMonitor = new Object();
+    private final InFlightCounter inFlight = new InFlightCounter();
     private ServerSocket serverSocket;
+    private ServerSocketChannel serverChannel;
+    private NioSocketReactor[] reactors;
+    private Set<SocketServerConnectionContext> connections;
     private LinkedBlockingQueue<SocketConnectionContext> handlerQueue;
+    private ExecutorService writerExecutor;
 
     @Resource
     private HandlerFactory handlerFactory;
@@ -81,6 +108,7 @@ public class ServerSocketComponent implements ComponentService {
 
         this.socketPort = ConfigProperty.getSocketPort();
         this.noDataWaitTime = ConfigProperty.getNoDataWaitTime();
+        this.mode = ConfigProperty.getSocketMode();
 
         if (this.initialize) return;
         this.initialize = false;
@@ -101,40 +129,228 @@ public class ServerSocketComponent implements ComponentService {
             return;
         }
 
-        this.serverSocket = new ServerSocket(this.socketPort, 128);
-        new Thread(new SocketAcceptListener(), COMPONENT_NAME).start();
-        ThreadGroup group = new ThreadGroup(COMPONENT_NAME + "-shl");
-        for (int i = 0; i < this.processors; i++) {
-            this.slackList[i] = new Thread(group, new SocketHandlerListener());
-            this.slackList[i].start();
+        this.accepting = true;
+        setSuspended(false);
+        if (NIO_MODE.equalsIgnoreCase(this.mode)) {
+            startReactors();
+        } else if (THREAD_MODE.equalsIgnoreCase(this.mode)) {
+            this.writerExecutor = createWriterExecutor();
+            this.connections = ConcurrentHashMap.newKeySet();
+            this.serverSocket = new ServerSocket(this.socketPort, ConfigProperty.getSocketBacklog());
+            new Thread(new SocketConnectionAcceptor(), COMPONENT_NAME).start();
+            LOGGER.info("{} serves every connection on its own {} thread.", COMPONENT_NAME,
+                    ConnectionThreads.isVirtual() ? "virtual" : "platform");
+        } else {
+            this.writerExecutor = createWriterExecutor();
+            this.serverSocket = new ServerSocket(this.socketPort, ConfigProperty.getSocketBacklog());
+            new Thread(new SocketAcceptListener(), COMPONENT_NAME).start();
+            ThreadGroup group = new ThreadGroup(COMPONENT_NAME + "-shl");
+            for (int i = 0; i < this.processors; i++) {
+                this.slackList[i] = new Thread(group, new SocketHandlerListener());
+                this.slackList[i].start();
+            }
         }
         this.started = true;
     }
 
-    @Override
-    public void stop() throws Exception {
+    /**
+     * Blocking writes to slow clients run here, never on the handler executor the senders use.
+     */
+    private ExecutorService createWriterExecutor() {
+        ThreadGroup group = new ThreadGroup(COMPONENT_NAME + "-writer");
+        AtomicInteger index = new AtomicInteger();
+        return Executors.newFixedThreadPool(this.processors, runnable -> {
+            Thread thread = new Thread(group, runnable, COMPONENT_NAME + "-writer-" + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void stopWriterExecutor() {
+        if (this.writerExecutor == null) return;
+        this.writerExecutor.shutdown();
+        this.writerExecutor = null;
+    }
+
+    private void startReactors() throws IOException {
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(this.socketPort), ConfigProperty.getSocketBacklog());
+        this.reactors = new NioSocketReactor[this.processors];
+        for (int i = 0; i < this.processors; i++) {
+            this.reactors[i] = new NioSocketReactor(this::addHandler, messageConvertToHandlerArgs, noDataWaitTime);
+        }
+        ThreadGroup group = new ThreadGroup(COMPONENT_NAME + "-reactor");
+        for (int i = 0; i < this.processors; i++) {
+            this.reactors[i].start(group, COMPONENT_NAME + "-reactor-" + i);
+        }
+        this.reactors[0].listen(this.serverChannel, this.reactors);
+    }
+
+    private void stopReactors() throws InterruptedException {
+        for (NioSocketReactor reactor : reactors) {
+            reactor.shutdown();
+        }
+        for (NioSocketReactor reactor : reactors) {
+            reactor.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        this.reactors = null;
+    }
 
+    @Override
+    public void suspend() throws Exception {
         if (!this.started) return;
-        this.started = false;
-        boolean listenerRunning = false;
-        do {
-            for (Thread thread : slackList) {
-                if (thread != null) {
-                    Thread.State state = thread.getState();
-                    if (!Thread.State.TERMINATED.equals(state)) {
-                        listenerRunning = true;
+        this.accepting = false;
+        setSuspended(true);
+        closeServerSocket();
+    }
+
+    @Override
+    public boolean awaitDrained(long deadline) throws InterruptedException {
+        return inFlight.awaitZero(deadline);
+    }
+
+    private void setSuspended(boolean suspended) {
+        synchronized (suspendMonitor) {
+            this.suspended = suspended;
+            Set<SocketServerConnectionContext> connections = this.connections;
+            if (connections != null) {
+                for (SocketServerConnectionContext connection : connections) {
+                    connection.setReadSuspended(suspended);
+                }
+            }
+            NioSocketReactor[] reactors = this.reactors;
+            if (reactors != null) {
+                for (NioSocketReactor reactor : reactors) {
+                    if (suspended) {
+                        reactor.suspendReads();
+                    } else {
+                        reactor.resumeReads();
                     }
                 }
             }
-        } while (listenerRunning);
+            suspendMonitor.notifyAll();
+        }
+    }
 
+    private void closeServerSocket() {
         try {
-            this.serverSocket.close();
+            if (this.serverSocket != null) this.serverSocket.close();
+            if (this.serverChannel != null) this.serverChannel.close();
         } catch (IOException e) {
             LOGGER.warn("ServerSocketComponent shutdown.", e);
         }
     }
 
+    @Override
+    public void stop() throws Exception {
+
+        if (!this.started) return;
+        this.accepting = false;
+        this.started = false;
+        setSuspended(false);
+        closeServerSocket();
+        if (this.reactors != null) {
+            stopReactors();
+            return;
+        }
+        if (this.connections != null) {
+            stopConnections();
+            stopWriterExecutor();
+            return;
+        }
+        for (Thread thread : slackList) {
+            if (thread != null) thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        stopWriterExecutor();
+    }
+
+    private void stopConnections() {
+        // the writers flush side by side on the writer pool, every close waits for the same deadline
+        long drainDeadline = System.currentTimeMillis() + ConfigProperty.getSocketCloseDrainTimeout();
+        for (SocketServerConnectionContext connection : connections) {
+            try {
+                connection.close(drainDeadline);
+            } catch (Exception e) {
+                LOGGER.warn("close connection fail.", e);
+            }
+        }
+        this.connections = null;
+    }
+
+    private SocketConnectionContext addHandler(SocketConnectionContext handler, CommonsMessage message) {
+        return dispatch(handler, message, false);
+    }
+
+    private SocketConnectionContext dispatch(SocketConnectionContext handler, CommonsMessage message, boolean inline) {
+
+        if (message == null) return handler;
+        if (CommonsMessageEnvelope.isEnvelope(message)) {
+            List<CommonsMessage> messages;
+            try {
+                messages = CommonsMessageEnvelope.unpack(message);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("unpack envelope fail.", e);
+                return handler;
+            } finally {
+                message.release();
+            }
+            EnvelopeHandlerTask envelopeTask = new EnvelopeHandlerTask(handler);
+            for (CommonsMessage item : messages) {
+                SocketHandlerTask task = createTask(handler, item);
+                if (task != null) envelopeTask.addTask(task);
+            }
+            if (!envelopeTask.isEmpty()) execute(envelopeTask, inline);
+        } else {
+            SocketHandlerTask task = createTask(handler, message);
+            if (task != null) execute(task, inline);
+        }
+
+        return handler;
+    }
+
+    private void execute(Runnable task, boolean inline) {
+        inFlight.increment();
+        if (inline) {
+            try {
+                task.run();
+            } finally {
+                inFlight.decrement();
+            }
+            return;
+        }
+        try {
+            executorService.addHandler(SerialTask.keyOf(task), () -> {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.decrement();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrement();
+            ReleasableTask.releaseIfNeeded(task);
+            LOGGER.warn("handler task rejected, message dropped.", e);
+        } catch (RuntimeException e) {
+            inFlight.decrement();
+            throw e;
+        }
+    }
+
+    private SocketHandlerTask createTask(SocketConnectionContext handler, CommonsMessage message) {
+        ProcessInvokeService invokeService = handlerFactory.getProcessMethod(
+                message.getMasterCode(), message.getSlaveCode());
+        if (invokeService == null) {
+            LOGGER.warn("NoSuchHandlerDefinition. masterCode:{}, slaveCode:{}", message.getMasterCode(), message.getSlaveCode());
+            message.release();
+            return null;
+        }
+        SocketHandlerTask task = new SocketHandlerTask(message);
+        task.setConnectionContext(handler);
+        task.setInvokeService(invokeService);
+        task.setMessageConvertToHandlerArgs(messageConvertToHandlerArgs);
+        return task;
+    }
+
     private class SocketAcceptListener implements Runnable {
 
         @Override
@@ -142,17 +358,93 @@ public class ServerSocketComponent implements ComponentService {
             do {
                 try {
                     Socket client = serverSocket.accept();
-                    if (!started) {
+                    if (!accepting) {
                         CommonsUtil.safeClose(client);
                         break;
                     }
-                    SocketServerConnectionContext frameHandler = new SocketServerConnectionContext(client, noDataWaitTime);
+                    SocketServerConnectionContext frameHandler = new SocketServerConnectionContext(client, noDataWaitTime, writerExecutor);
                     frameHandler.setMessageConvertToHandlerArgs(messageConvertToHandlerArgs);
                     handlerQueue.add(frameHandler);
                 } catch (IOException e) {
-                    LOGGER.warn("serverSocket accept exception.", e);
+                    if (accepting) LOGGER.warn("serverSocket accept exception.", e);
+                }
+            } while (accepting);
+        }
+    }
+
+    private class SocketConnectionAcceptor implements Runnable {
+
+        @Override
+        public void run() {
+            ThreadGroup group = new ThreadGroup(COMPONENT_NAME + "-connection");
+            do {
+                try {
+                    Socket client = serverSocket.accept();
+                    if (!accepting) {
+                        CommonsUtil.safeClose(client);
+                        break;
+                    }
+                    client.setTcpNoDelay(ConfigProperty.getSocketTcpNoDelay());
+                    SocketServerConnectionContext connection = new SocketServerConnectionContext(client, noDataWaitTime, writerExecutor);
+                    connection.setMessageConvertToHandlerArgs(messageConvertToHandlerArgs);
+                    connection.setReadSuspended(suspended);
+                    connections.add(connection);
+                    String name = COMPONENT_NAME + "-" + connection.getConnectionIp() + ":" + connection.getConnectionPort();
+                    ConnectionThreads.newThread(group, new SocketConnectionWorker(connection), name).start();
+                } catch (IOException e) {
+                    if (accepting) LOGGER.warn("serverSocket accept exception.", e);
+                }
+            } while (accepting);
+        }
+    }
+
+    private class SocketConnectionWorker implements Runnable {
+
+        private final SocketServerConnectionContext connection;
+
+        private SocketConnectionWorker(SocketServerConnectionContext connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (started && !connection.isClose()) {
+                    CommonsMessage message;
+                    try {
+                        message = connection.awaitMessage();
+                    } catch (IllegalArgumentException e) {
+                        LOGGER.warn("receiveMessage fail, close connection.", e);
+                        break;
+                    }
+                    if (message == null) {
+                        awaitResumed();
+                        if (Thread.currentThread().isInterrupted()) break;
+                        continue;
+                    }
+                    dispatch(connection, message, true);
                 }
-            } while (started);
+            } catch (IOException e) {
+                LOGGER.debug("connection {}:{} closed:{}", connection.getConnectionIp(), connection.getConnectionPort(), e.getMessage());
+            } finally {
+                Set<SocketServerConnectionContext> connections = ServerSocketComponent.this.connections;
+                if (connections != null) connections.remove(connection);
+                try {
+                    connection.close();
+                } catch (Exception e) {
+                    LOGGER.warn("close connection fail.", e);
+                }
+            }
+        }
+    }
+
+    private void awaitResumed() {
+        try {
+            synchronized (suspendMonitor) {
+                while (suspended && started) suspendMonitor.wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -161,6 +453,12 @@ public class ServerSocketComponent implements ComponentService {
         @Override
         public void run() {
             while (true) {
+                if (suspended && started) {
+                    // draining, leave the connections alone until stop closes them
+                    awaitResumed();
+                    if (Thread.currentThread().isInterrupted()) break;
+                    continue;
+                }
                 SocketConnectionContext handler = pollHandler();
                 if (handler == null) {
                     if (!started) break;
@@ -196,30 +494,11 @@ public class ServerSocketComponent implements ComponentService {
                 message = handler.receiveMessage();
             } catch (SocketException close) {
                 CommonsUtil.safeClose(handler);
-            } catch (IOException e) {
+            } catch (IOException | IllegalArgumentException e) {
                 LOGGER.warn("receiveMessage.", e);
             }
 
             return addHandler(handler, message);
         }
-
-        private SocketConnectionContext addHandler(SocketConnectionContext handler, CommonsMessage message) {
-
-            if (message != null) {
-                ProcessInvokeService invokeService = handlerFactory.getProcessMethod(
-                        message.getMasterCode(), message.getSlaveCode());
-                if (invokeService != null) {
-                    SocketHandlerTask task = new SocketHandlerTask(message);
-                    task.setConnectionContext(handler);
-                    task.setInvokeService(invokeService);
-                    task.setMessageConvertToHandlerArgs(messageConvertToHandlerArgs);
-                    executorService.addHandler(task);
-                } else {
-                    LOGGER.warn("NoSuchHandlerDefinition. masterCode:{}, slaveCode:{}", message.getMasterCode(), message.getSlaveCode());
-                }
-            }
-
-            return handler;
-        }
     }
 }
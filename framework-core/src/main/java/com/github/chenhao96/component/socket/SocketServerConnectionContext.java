@@ -18,21 +18,32 @@ package com.github.chenhao96.component.socket;
 
 import com.github.chenhao96.component.net.CommonsMessage;
 import com.github.chenhao96.component.net.ConnectionCloseProcess;
+import com.github.chenhao96.component.net.ConnectionHandshake;
 import com.github.chenhao96.component.net.DefaultConnectionContext;
 import com.github.chenhao96.component.net.MessageConvertToHandlerArgs;
+import com.github.chenhao96.component.net.checksum.FrameChecksum;
+import com.github.chenhao96.component.net.checksum.FrameChecksums;
+import com.github.chenhao96.component.net.compress.FrameCompressor;
+import com.github.chenhao96.component.net.compress.FrameCompressors;
+import com.github.chenhao96.model.ConfigProperty;
 import com.github.chenhao96.utils.CommonsUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class SocketServerConnectionContext extends DefaultConnectionContext implements SocketConnectionContext {
 
@@ -42,13 +53,29 @@ public class SocketServerConnectionContext extends DefaultConnectionContext impl
     private long lastLogTime = 0L;
     private InputStream clientInputStream;
     private OutputStream clientOutputStream;
+    private SocketWriteQueue writeQueue;
+    private PushbackInputStream pushbackInputStream;
     private List<ConnectionCloseProcess> closeProcesses;
     private MessageConvertToHandlerArgs messageConvertToHandlerArgs;
     private static final Logger LOGGER = LoggerFactory.getLogger(SocketServerConnectionContext.class);
 
     private long noDataWaitTime;
+    private volatile boolean readSuspended;
+    private volatile FrameChecksum checksum = FrameChecksums.LEGACY;
+    private volatile FrameCompressor compressor;
+    private final int compressThreshold = ConfigProperty.getCompressThreshold();
+    private final int maxFrameLength = ConfigProperty.getMaxFrameLength();
+    private final long closeDrainTimeout = ConfigProperty.getSocketCloseDrainTimeout();
 
     public SocketServerConnectionContext(Socket client, long noDataWaitTime) {
+        this(client, noDataWaitTime, null);
+    }
+
+    /**
+     * @param writeExecutor runs the writer draining the outbound queue, a pool of its own rather than the
+     *                      handler executor; {@code null} writes on the sending thread
+     */
+    public SocketServerConnectionContext(Socket client, long noDataWaitTime, Executor writeExecutor) {
         Assert.notNull(client, "SocketFrameHandler Socket client is required!");
 
         this.client = client;
@@ -57,10 +84,12 @@ public class SocketServerConnectionContext extends DefaultConnectionContext impl
         this.connectionIp = CommonsUtil.socketRemoteIP(client);
         try {
             this.clientInputStream = client.getInputStream();
-            this.clientOutputStream = client.getOutputStream();
+            this.clientOutputStream = new BufferedOutputStream(client.getOutputStream());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        this.writeQueue = new SocketWriteQueue(clientOutputStream, ConfigProperty.getSocketWriteQueueCapacity(),
+                WriteOverflowPolicy.of(ConfigProperty.getSocketWriteOverflowPolicy()), writeExecutor, () -> CommonsUtil.safeClose(this));
     }
 
     public void setMessageConvertToHandlerArgs(MessageConvertToHandlerArgs messageConvertToHandlerArgs) {
@@ -83,7 +112,7 @@ public class SocketServerConnectionContext extends DefaultConnectionContext impl
         DataInputStream dataInputStream = new DataInputStream(clientInputStream);
         if (dataInputStream.available() >= CommonsMessage.MIN_DATA_LENGTH) {
             lastLogTime = System.currentTimeMillis();
-            return CommonsMessage.createMessageByData(dataInputStream);
+            return handleFrame(CommonsMessage.createMessageByData(dataInputStream, checksum));
         } else {
             long currentLogTime = System.currentTimeMillis();
             if (currentLogTime - lastLogTime > noDataWaitTime) {
@@ -94,6 +123,65 @@ public class SocketServerConnectionContext extends DefaultConnectionContext impl
         return null;
     }
 
+    /**
+     * Blocks until a whole frame arrived, sends the heartbeat whenever nothing was read
+     * for {@code noDataWaitTime}. Used when the connection has a thread of its own.
+     *
+     * @return {@code null} once the connection is closed or its reads are suspended
+     */
+    public CommonsMessage awaitMessage() throws IOException {
+        int idleTimeout = (int) Math.min(Integer.MAX_VALUE, Math.max(1L, noDataWaitTime));
+        if (pushbackInputStream == null) {
+            pushbackInputStream = new PushbackInputStream(new BufferedInputStream(clientInputStream));
+            client.setSoTimeout(idleTimeout);
+        }
+        while (!isClose() && !readSuspended) {
+            int first;
+            try {
+                first = pushbackInputStream.read();
+            } catch (SocketTimeoutException idle) {
+                sendMessage(new CommonsMessage(CommonsMessage.CONTROL_MASTER_CODE, CommonsMessage.HEARTBEAT_SLAVE_CODE));
+                continue;
+            }
+            if (first < 0) throw new SocketException("connection closed by peer");
+            pushbackInputStream.unread(first);
+            if (readSuspended) return null;
+            // only the wait for a frame's first byte is idle time, a frame in flight gets the missed heartbeats budget
+            client.setSoTimeout((int) Math.min(Integer.MAX_VALUE, (long) idleTimeout * ConfigProperty.getMaxMissedHeartbeats()));
+            CommonsMessage message;
+            try {
+                message = handleFrame(CommonsMessage.createMessageByData(new DataInputStream(pushbackInputStream), checksum));
+            } finally {
+                client.setSoTimeout(idleTimeout);
+            }
+            if (message != null) return message;
+        }
+        return null;
+    }
+
+    /**
+     * Makes {@link #awaitMessage()} return instead of reading further frames, frames already
+     * received stay buffered until reads resume.
+     */
+    void setReadSuspended(boolean readSuspended) {
+        this.readSuspended = readSuspended;
+    }
+
+    private CommonsMessage handleFrame(CommonsMessage message) {
+        if (ConnectionHandshake.isHandshake(message)) {
+            ConnectionHandshake handshake = ConnectionHandshake.negotiate(message);
+            sendMessage(handshake.createReply());
+            checksum = handshake.getChecksum();
+            compressor = handshake.getCompressor();
+            return null;
+        }
+        return FrameCompressors.decompress(message, compressor, maxFrameLength);
+    }
+
+    public SocketWriteQueue getWriteQueue() {
+        return writeQueue;
+    }
+
     @Override
     public boolean isClose() {
         return client.isClosed();
@@ -101,6 +189,14 @@ public class SocketServerConnectionContext extends DefaultConnectionContext impl
 
     @Override
     public void close() throws IOException {
+        close(System.currentTimeMillis() + closeDrainTimeout);
+    }
+
+    /**
+     * @param drainDeadline how long queued frames may still be flushed, in {@link System#currentTimeMillis()}
+     *                      terms; connections closed together share it instead of waiting one after another
+     */
+    void close(long drainDeadline) throws IOException {
         if (isClose()) return;
         if (closeProcesses != null) {
             for (ConnectionCloseProcess closeProcess : closeProcesses) {
@@ -108,22 +204,19 @@ public class SocketServerConnectionContext extends DefaultConnectionContext impl
                 closeProcess.process(this);
             }
         }
-        CommonsUtil.safeClose(clientInputStream, clientOutputStream, client);
+        writeQueue.awaitFlushed(drainDeadline);
+        // closing the socket closes its streams and fails a writer stuck on a client that does not read,
+        // closing the buffered stream first could block on that writer
+        CommonsUtil.safeClose(client);
     }
 
     @Override
     public void sendMessage(CommonsMessage message) {
 
         if (message == null || isClose() || client.isOutputShutdown()) return;
-        byte[] buf = CommonsMessage.createByteByMessage(message);
-
-        try {
-            clientOutputStream.write(buf);
-            clientOutputStream.flush();
-        } catch (SocketException close) {
-            CommonsUtil.safeClose(this);
-        } catch (IOException e) {
-            LOGGER.warn("sendMessage", e);
+        byte[] buf = CommonsMessage.createByteByMessage(FrameCompressors.compress(message, compressor, compressThreshold), checksum);
+        if (!writeQueue.offer(buf)) {
+            LOGGER.debug("sendMessage dropped, master:{} slave:{}", message.getMasterCode(), message.getSlaveCode());
         }
     }
 
@@ -0,0 +1,263 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.socket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded outbound queue of one blocking socket connection. Senders only enqueue encoded frames,
+ * a single writer task on the (dedicated) executor drains everything queued so far into the stream
+ * and flushes once per batch, so a slow client holds at most that writer instead of every sender.
+ */
+public class SocketWriteQueue implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SocketWriteQueue.class);
+
+    private final OutputStream outputStream;
+    private final Executor executor;
+    private final Runnable closeAction;
+    private final WriteOverflowPolicy policy;
+    private final ArrayBlockingQueue<byte[]> queue;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final AtomicLong writtenFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private volatile int peakSize;
+    private volatile boolean failed;
+    private volatile boolean closing;
+
+    /**
+     * @param executor    runs the writer, must not be the pool the senders run on;
+     *                    {@code null} writes on the sending thread
+     * @param closeAction closes the connection, it must close the socket before anything that
+     *                    could wait for a writer stuck in a blocking write
+     */
+    SocketWriteQueue(OutputStream outputStream, int capacity, WriteOverflowPolicy policy,
+                     Executor executor, Runnable closeAction) {
+        this.outputStream = outputStream;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.policy = policy == null ? WriteOverflowPolicy.BLOCK : policy;
+        this.executor = executor;
+        this.closeAction = closeAction;
+    }
+
+    boolean offer(byte[] frame) {
+        if (failed) return false;
+        if (!queue.offer(frame)) {
+            switch (policy) {
+                case DROP:
+                    droppedFrames.incrementAndGet();
+                    return false;
+                case DISCONNECT:
+                    droppedFrames.incrementAndGet();
+                    LOGGER.warn("write queue full ({} frames), disconnect.", queue.size());
+                    fail();
+                    return false;
+                default:
+                    if (executor == null) {
+                        // no writer of its own, the sender is the writer
+                        do {
+                            drain();
+                            if (failed) return false;
+                        } while (!queue.offer(frame));
+                    } else {
+                        // wait for the writer to make room, fail() clears the queue and wakes us up
+                        schedule();
+                        try {
+                            queue.put(frame);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            droppedFrames.incrementAndGet();
+                            return false;
+                        }
+                        if (failed) {
+                            queue.clear();
+                            return false;
+                        }
+                    }
+            }
+        }
+        int size = queue.size();
+        if (size > peakSize) peakSize = size;
+        schedule();
+        return true;
+    }
+
+    private void schedule() {
+        if (executor == null) {
+            drain();
+            return;
+        }
+        if (!scheduled.compareAndSet(false, true)) return;
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            // the writer pool is shutting down, nobody will drain this queue any more
+            scheduled.set(false);
+            fail();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            drain();
+        } finally {
+            scheduled.set(false);
+        }
+        if (!queue.isEmpty() && !failed) schedule();
+    }
+
+    /**
+     * Writes whatever is queued and flushes once.
+     */
+    void drain() {
+        writeLock.lock();
+        try {
+            write();
+        } finally {
+            writeLock.unlock();
+        }
+        if (closing) signalFlushed();
+    }
+
+    /**
+     * Waits for what is queued to be written before the connection closes, giving up at
+     * {@code deadline} when the writer is stuck on a client that does not read.
+     *
+     * @param deadline absolute time in {@link System#currentTimeMillis()} terms
+     * @return {@code true} when everything was written
+     */
+    boolean awaitFlushed(long deadline) {
+        if (failed) return false;
+        if (executor == null) {
+            // the senders are the writers, what is left is written here
+            try {
+                long timeout = Math.max(0L, deadline - System.currentTimeMillis());
+                if (!writeLock.tryLock(timeout, TimeUnit.MILLISECONDS)) return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            try {
+                write();
+            } finally {
+                writeLock.unlock();
+            }
+            return !failed;
+        }
+        closing = true;
+        schedule();
+        synchronized (this) {
+            while (!failed && (!queue.isEmpty() || writeLock.isLocked())) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return false;
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return !failed;
+    }
+
+    private synchronized void signalFlushed() {
+        notifyAll();
+    }
+
+    private void write() {
+        int batch = 0;
+        try {
+            byte[] frame;
+            while ((frame = queue.poll()) != null) {
+                outputStream.write(frame);
+                batch++;
+            }
+            if (batch > 0) {
+                outputStream.flush();
+                flushes.incrementAndGet();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("write queue fail:{}", e.getMessage());
+            fail();
+        } finally {
+            writtenFrames.addAndGet(batch);
+        }
+    }
+
+    private void fail() {
+        if (failed) return;
+        failed = true;
+        droppedFrames.addAndGet(queue.size());
+        queue.clear();
+        if (closing) signalFlushed();
+        if (closeAction == null) return;
+        try {
+            closeAction.run();
+        } catch (RuntimeException e) {
+            LOGGER.warn("write queue close connection fail.", e);
+        }
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    public WriteOverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    public int getSize() {
+        return queue.size();
+    }
+
+    public int getCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public int getPeakSize() {
+        return peakSize;
+    }
+
+    public long getWrittenFrames() {
+        return writtenFrames.get();
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    public long getFlushes() {
+        return flushes.get();
+    }
+}
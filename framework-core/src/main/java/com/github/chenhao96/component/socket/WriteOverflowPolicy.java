@@ -0,0 +1,47 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.socket;
+
+/**
+ * What {@link SocketWriteQueue} does with a frame when the connection's outbound queue is full.
+ */
+public enum WriteOverflowPolicy {
+
+    /**
+     * Discard the frame and keep the connection.
+     */
+    DROP,
+
+    /**
+     * Hold the sending thread until the writer has made room. Without a writer pool the sender
+     * writes the queue out itself instead.
+     */
+    BLOCK,
+
+    /**
+     * Discard the frame and close the connection, the peer is not keeping up.
+     */
+    DISCONNECT;
+
+    /**
+     * Reads the configured name, case and surrounding blanks do not matter.
+     */
+    public static WriteOverflowPolicy of(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.github.chenhao96.model;
 
+
 import java.util.concurrent.TimeUnit;
 
 public class ConfigProperty {
@@ -24,11 +25,61 @@ public class ConfigProperty {
     public static final String ENABLE_SOCKET_SSL_KEY = "steven.netty.socket.ssl";
     public static final String THREAD_POOL_SIZE_KEY = "steven.task.executor.poolSize";
     public static final String SOCKET_NO_DATA_WAIT_TIME_KEY = "steven.java.socket.noDataWaitTime";
+    public static final String MAX_FRAME_LENGTH_KEY = "steven.netty.socket.maxFrameLength";
+    public static final String EXPLICIT_FLUSH_AFTER_FLUSHES_KEY = "steven.netty.socket.explicitFlushAfterFlushes";
+    public static final String COMPRESS_THRESHOLD_KEY = "steven.socket.compress.threshold";
+    public static final String NETTY_NATIVE_TRANSPORT_KEY = "steven.netty.socket.nativeTransport";
+    public static final String NETTY_BOSS_THREADS_KEY = "steven.netty.socket.bossThreads";
+    public static final String NETTY_WORKER_THREADS_KEY = "steven.netty.socket.workerThreads";
+    public static final String NETTY_ACCEPTORS_KEY = "steven.netty.socket.acceptors";
+    public static final String SOCKET_BACKLOG_KEY = "steven.netty.socket.backlog";
+    public static final String SOCKET_KEEP_ALIVE_KEY = "steven.netty.socket.keepAlive";
+    public static final String SOCKET_TCP_NO_DELAY_KEY = "steven.netty.socket.tcpNoDelay";
+    public static final String SOCKET_RECEIVE_BUFFER_SIZE_KEY = "steven.netty.socket.receiveBufferSize";
+    public static final String SOCKET_SEND_BUFFER_SIZE_KEY = "steven.netty.socket.sendBufferSize";
+    public static final String WRITE_BUFFER_LOW_WATER_MARK_KEY = "steven.netty.socket.writeBufferLowWaterMark";
+    public static final String WRITE_BUFFER_HIGH_WATER_MARK_KEY = "steven.netty.socket.writeBufferHighWaterMark";
+    public static final String EXECUTOR_QUEUE_HIGH_WATER_MARK_KEY = "steven.task.executor.queueHighWaterMark";
+    public static final String EXECUTOR_QUEUE_LOW_WATER_MARK_KEY = "steven.task.executor.queueLowWaterMark";
+    public static final String IN_FLIGHT_HIGH_WATER_MARK_KEY = "steven.netty.socket.inFlightHighWaterMark";
+    public static final String IN_FLIGHT_LOW_WATER_MARK_KEY = "steven.netty.socket.inFlightLowWaterMark";
+    public static final String READER_IDLE_TIME_KEY = "steven.netty.socket.readerIdleTime";
+    public static final String WRITER_IDLE_TIME_KEY = "steven.netty.socket.writerIdleTime";
+    public static final String MAX_MISSED_HEARTBEATS_KEY = "steven.netty.socket.maxMissedHeartbeats";
+    public static final String SOCKET_MODE_KEY = "steven.java.socket.mode";
+    public static final String SHUTDOWN_DRAIN_TIMEOUT_KEY = "steven.component.shutdownDrainTimeout";
+    public static final String SOCKET_WRITE_QUEUE_CAPACITY_KEY = "steven.java.socket.writeQueueCapacity";
+    public static final String SOCKET_WRITE_OVERFLOW_POLICY_KEY = "steven.java.socket.writeOverflowPolicy";
+    public static final String SOCKET_CLOSE_DRAIN_TIMEOUT_KEY = "steven.java.socket.closeDrainTimeout";
 
     private static final String SOCKET_PORT_DEFAULT = "8899";
     private static final String ENABLE_SOCKET_SSL_DEFAULT = "false";
     private static final String SOCKET_NO_DATA_WAIT_TIME_DEFAULT = TimeUnit.SECONDS.toMillis(30) + "";
-    private static final String THREAD_POOL_SIZE_DEFAULT = (Runtime.getRuntime().availableProcessors() * 2.5) + "";
+    private static final String MAX_FRAME_LENGTH_DEFAULT = (1024 * 1024) + "";
+    private static final String EXPLICIT_FLUSH_AFTER_FLUSHES_DEFAULT = "256";
+    private static final String COMPRESS_THRESHOLD_DEFAULT = "1024";
+    private static final String NETTY_NATIVE_TRANSPORT_DEFAULT = "true";
+    private static final String NETTY_BOSS_THREADS_DEFAULT = "1";
+    private static final String NETTY_WORKER_THREADS_DEFAULT = (Runtime.getRuntime().availableProcessors() * 2) + "";
+    private static final String NETTY_ACCEPTORS_DEFAULT = "1";
+    private static final String SOCKET_BACKLOG_DEFAULT = "1024";
+    private static final String SOCKET_KEEP_ALIVE_DEFAULT = "true";
+    private static final String SOCKET_TCP_NO_DELAY_DEFAULT = "true";
+    private static final String SOCKET_BUFFER_SIZE_DEFAULT = "0";
+    private static final String WRITE_BUFFER_LOW_WATER_MARK_DEFAULT = (32 * 1024) + "";
+    private static final String WRITE_BUFFER_HIGH_WATER_MARK_DEFAULT = (64 * 1024) + "";
+    private static final String EXECUTOR_QUEUE_HIGH_WATER_MARK_DEFAULT = "8192";
+    private static final String EXECUTOR_QUEUE_LOW_WATER_MARK_DEFAULT = "2048";
+    private static final String IN_FLIGHT_HIGH_WATER_MARK_DEFAULT = "256";
+    private static final String IN_FLIGHT_LOW_WATER_MARK_DEFAULT = "64";
+    private static final String IDLE_TIME_DEFAULT = TimeUnit.SECONDS.toMillis(30) + "";
+    private static final String MAX_MISSED_HEARTBEATS_DEFAULT = "3";
+    private static final String SOCKET_MODE_DEFAULT = "polling";
+    private static final String SHUTDOWN_DRAIN_TIMEOUT_DEFAULT = TimeUnit.SECONDS.toMillis(30) + "";
+    private static final String SOCKET_WRITE_QUEUE_CAPACITY_DEFAULT = "1024";
+    private static final String SOCKET_WRITE_OVERFLOW_POLICY_DEFAULT = "BLOCK";
+    private static final String SOCKET_CLOSE_DRAIN_TIMEOUT_DEFAULT = "1000";
+    private static final String THREAD_POOL_SIZE_DEFAULT = ((int) (Runtime.getRuntime().availableProcessors() * 2.5)) + "";
 
     public static int getSocketPort() {
         return Integer.valueOf(System.getProperty(SOCKET_PORT_KEY, SOCKET_PORT_DEFAULT));
@@ -46,6 +97,110 @@ public class ConfigProperty {
         return Long.valueOf(System.getProperty(SOCKET_NO_DATA_WAIT_TIME_KEY, SOCKET_NO_DATA_WAIT_TIME_DEFAULT));
     }
 
+    public static int getMaxFrameLength() {
+        return Integer.valueOf(System.getProperty(MAX_FRAME_LENGTH_KEY, MAX_FRAME_LENGTH_DEFAULT));
+    }
+
+    public static int getExplicitFlushAfterFlushes() {
+        return Integer.valueOf(System.getProperty(EXPLICIT_FLUSH_AFTER_FLUSHES_KEY, EXPLICIT_FLUSH_AFTER_FLUSHES_DEFAULT));
+    }
+
+    public static int getCompressThreshold() {
+        return Integer.valueOf(System.getProperty(COMPRESS_THRESHOLD_KEY, COMPRESS_THRESHOLD_DEFAULT));
+    }
+
+    public static boolean getNettyNativeTransport() {
+        return Boolean.valueOf(System.getProperty(NETTY_NATIVE_TRANSPORT_KEY, NETTY_NATIVE_TRANSPORT_DEFAULT));
+    }
+
+    public static int getNettyBossThreads() {
+        return Integer.valueOf(System.getProperty(NETTY_BOSS_THREADS_KEY, NETTY_BOSS_THREADS_DEFAULT));
+    }
+
+    public static int getNettyWorkerThreads() {
+        return Integer.valueOf(System.getProperty(NETTY_WORKER_THREADS_KEY, NETTY_WORKER_THREADS_DEFAULT));
+    }
+
+    public static int getNettyAcceptors() {
+        return Integer.valueOf(System.getProperty(NETTY_ACCEPTORS_KEY, NETTY_ACCEPTORS_DEFAULT));
+    }
+
+    public static int getSocketBacklog() {
+        return Integer.valueOf(System.getProperty(SOCKET_BACKLOG_KEY, SOCKET_BACKLOG_DEFAULT));
+    }
+
+    public static boolean getSocketKeepAlive() {
+        return Boolean.valueOf(System.getProperty(SOCKET_KEEP_ALIVE_KEY, SOCKET_KEEP_ALIVE_DEFAULT));
+    }
+
+    public static boolean getSocketTcpNoDelay() {
+        return Boolean.valueOf(System.getProperty(SOCKET_TCP_NO_DELAY_KEY, SOCKET_TCP_NO_DELAY_DEFAULT));
+    }
+
+    public static int getSocketReceiveBufferSize() {
+        return Integer.valueOf(System.getProperty(SOCKET_RECEIVE_BUFFER_SIZE_KEY, SOCKET_BUFFER_SIZE_DEFAULT));
+    }
+
+    public static int getSocketSendBufferSize() {
+        return Integer.valueOf(System.getProperty(SOCKET_SEND_BUFFER_SIZE_KEY, SOCKET_BUFFER_SIZE_DEFAULT));
+    }
+
+    public static int getWriteBufferLowWaterMark() {
+        return Integer.valueOf(System.getProperty(WRITE_BUFFER_LOW_WATER_MARK_KEY, WRITE_BUFFER_LOW_WATER_MARK_DEFAULT));
+    }
+
+    public static int getWriteBufferHighWaterMark() {
+        return Integer.valueOf(System.getProperty(WRITE_BUFFER_HIGH_WATER_MARK_KEY, WRITE_BUFFER_HIGH_WATER_MARK_DEFAULT));
+    }
+
+    public static int getExecutorQueueHighWaterMark() {
+        return Integer.valueOf(System.getProperty(EXECUTOR_QUEUE_HIGH_WATER_MARK_KEY, EXECUTOR_QUEUE_HIGH_WATER_MARK_DEFAULT));
+    }
+
+    public static int getExecutorQueueLowWaterMark() {
+        return Integer.valueOf(System.getProperty(EXECUTOR_QUEUE_LOW_WATER_MARK_KEY, EXECUTOR_QUEUE_LOW_WATER_MARK_DEFAULT));
+    }
+
+    public static int getInFlightHighWaterMark() {
+        return Integer.valueOf(System.getProperty(IN_FLIGHT_HIGH_WATER_MARK_KEY, IN_FLIGHT_HIGH_WATER_MARK_DEFAULT));
+    }
+
+    public static int getInFlightLowWaterMark() {
+        return Integer.valueOf(System.getProperty(IN_FLIGHT_LOW_WATER_MARK_KEY, IN_FLIGHT_LOW_WATER_MARK_DEFAULT));
+    }
+
+    public static long getReaderIdleTime() {
+        return Long.valueOf(System.getProperty(READER_IDLE_TIME_KEY, IDLE_TIME_DEFAULT));
+    }
+
+    public static long getWriterIdleTime() {
+        return Long.valueOf(System.getProperty(WRITER_IDLE_TIME_KEY, IDLE_TIME_DEFAULT));
+    }
+
+    public static int getMaxMissedHeartbeats() {
+        return Integer.valueOf(System.getProperty(MAX_MISSED_HEARTBEATS_KEY, MAX_MISSED_HEARTBEATS_DEFAULT));
+    }
+
+    public static String getSocketMode() {
+        return System.getProperty(SOCKET_MODE_KEY, SOCKET_MODE_DEFAULT);
+    }
+
+    public static long getShutdownDrainTimeout() {
+        return Long.valueOf(System.getProperty(SHUTDOWN_DRAIN_TIMEOUT_KEY, SHUTDOWN_DRAIN_TIMEOUT_DEFAULT));
+    }
+
+    public static int getSocketWriteQueueCapacity() {
+        return Integer.valueOf(System.getProperty(SOCKET_WRITE_QUEUE_CAPACITY_KEY, SOCKET_WRITE_QUEUE_CAPACITY_DEFAULT));
+    }
+
+    public static String getSocketWriteOverflowPolicy() {
+        return System.getProperty(SOCKET_WRITE_OVERFLOW_POLICY_KEY, SOCKET_WRITE_OVERFLOW_POLICY_DEFAULT);
+    }
+
+    public static long getSocketCloseDrainTimeout() {
+        return Long.valueOf(System.getProperty(SOCKET_CLOSE_DRAIN_TIMEOUT_KEY, SOCKET_CLOSE_DRAIN_TIMEOUT_DEFAULT));
+    }
+
     public static void setSocketPort(int port) {
         System.setProperty(SOCKET_PORT_KEY, port + "");
     }
@@ -61,4 +216,96 @@ public class ConfigProperty {
     public static void setNoDataWaitTime(long noDataWaitTime) {
         System.setProperty(SOCKET_NO_DATA_WAIT_TIME_KEY, noDataWaitTime + "");
     }
+
+    public static void setMaxFrameLength(int maxFrameLength) {
+        System.setProperty(MAX_FRAME_LENGTH_KEY, maxFrameLength + "");
+    }
+
+    public static void setExplicitFlushAfterFlushes(int explicitFlushAfterFlushes) {
+        System.setProperty(EXPLICIT_FLUSH_AFTER_FLUSHES_KEY, explicitFlushAfterFlushes + "");
+    }
+
+    public static void setCompressThreshold(int compressThreshold) {
+        System.setProperty(COMPRESS_THRESHOLD_KEY, compressThreshold + "");
+    }
+
+    public static void setNettyNativeTransport(boolean nativeTransport) {
+        System.setProperty(NETTY_NATIVE_TRANSPORT_KEY, nativeTransport + "");
+    }
+
+    public static void setNettyBossThreads(int bossThreads) {
+        System.setProperty(NETTY_BOSS_THREADS_KEY, bossThreads + "");
+    }
+
+    public static void setNettyWorkerThreads(int workerThreads) {
+        System.setProperty(NETTY_WORKER_THREADS_KEY, workerThreads + "");
+    }
+
+    public static void setNettyAcceptors(int acceptors) {
+        System.setProperty(NETTY_ACCEPTORS_KEY, acceptors + "");
+    }
+
+    public static void setSocketBacklog(int backlog) {
+        System.setProperty(SOCKET_BACKLOG_KEY, backlog + "");
+    }
+
+    public static void setSocketKeepAlive(boolean keepAlive) {
+        System.setProperty(SOCKET_KEEP_ALIVE_KEY, keepAlive + "");
+    }
+
+    public static void setSocketTcpNoDelay(boolean tcpNoDelay) {
+        System.setProperty(SOCKET_TCP_NO_DELAY_KEY, tcpNoDelay + "");
+    }
+
+    public static void setSocketReceiveBufferSize(int receiveBufferSize) {
+        System.setProperty(SOCKET_RECEIVE_BUFFER_SIZE_KEY, receiveBufferSize + "");
+    }
+
+    public static void setSocketSendBufferSize(int sendBufferSize) {
+        System.setProperty(SOCKET_SEND_BUFFER_SIZE_KEY, sendBufferSize + "");
+    }
+
+    public static void setWriteBufferWaterMark(int low, int high) {
+        System.setProperty(WRITE_BUFFER_LOW_WATER_MARK_KEY, low + "");
+        System.setProperty(WRITE_BUFFER_HIGH_WATER_MARK_KEY, high + "");
+    }
+
+    public static void setExecutorQueueWaterMark(int low, int high) {
+        System.setProperty(EXECUTOR_QUEUE_LOW_WATER_MARK_KEY, low + "");
+        System.setProperty(EXECUTOR_QUEUE_HIGH_WATER_MARK_KEY, high + "");
+    }
+
+    public static void setInFlightWaterMark(int low, int high) {
+        System.setProperty(IN_FLIGHT_LOW_WATER_MARK_KEY, low + "");
+        System.setProperty(IN_FLIGHT_HIGH_WATER_MARK_KEY, high + "");
+    }
+
+    public static void setReaderIdleTime(long readerIdleTime) {
+        System.setProperty(READER_IDLE_TIME_KEY, readerIdleTime + "");
+    }
+
+    public static void setWriterIdleTime(long writerIdleTime) {
+        System.setProperty(WRITER_IDLE_TIME_KEY, writerIdleTime + "");
+    }
+
+    public static void setMaxMissedHeartbeats(int maxMissedHeartbeats) {
+        System.setProperty(MAX_MISSED_HEARTBEATS_KEY, maxMissedHeartbeats + "");
+    }
+
+    public static void setSocketMode(String mode) {
+        System.setProperty(SOCKET_MODE_KEY, mode);
+    }
+
+    public static void setShutdownDrainTimeout(long shutdownDrainTimeout) {
+        System.setProperty(SHUTDOWN_DRAIN_TIMEOUT_KEY, shutdownDrainTimeout + "");
+    }
+
+    public static void setSocketWriteQueue(int capacity, String policy) {
+        System.setProperty(SOCKET_WRITE_QUEUE_CAPACITY_KEY, capacity + "");
+        System.setProperty(SOCKET_WRITE_OVERFLOW_POLICY_KEY, policy);
+    }
+
+    public static void setSocketCloseDrainTimeout(long closeDrainTimeout) {
+        System.setProperty(SOCKET_CLOSE_DRAIN_TIMEOUT_KEY, closeDrainTimeout + "");
+    }
 }
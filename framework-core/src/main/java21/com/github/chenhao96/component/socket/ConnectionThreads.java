@@ -0,0 +1,36 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.socket;
+
+/**
+ * JDK 21+ version, every connection gets its own virtual thread so handlers blocking
+ * on Redis or JDBC do not hold a platform thread.
+ */
+final class ConnectionThreads {
+
+    private ConnectionThreads() {
+    }
+
+    static boolean isVirtual() {
+        return true;
+    }
+
+    static Thread newThread(ThreadGroup group, Runnable task, String name) {
+        return Thread.ofVirtual().name(name).unstarted(task);
+    }
+}
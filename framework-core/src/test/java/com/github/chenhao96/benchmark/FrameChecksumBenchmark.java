@@ -0,0 +1,88 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.chenhao96.benchmark;
+
+import com.github.chenhao96.component.net.checksum.FrameChecksum;
+import com.github.chenhao96.component.net.checksum.FrameChecksums;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameChecksumBenchmark {
+
+    @Param({"16", "256", "4096", "65536"})
+    private int size;
+
+    @Param({"none", "legacy", "crc32", "crc32c"})
+    private String algorithm;
+
+    private byte[] heapData;
+    private ByteBuf directData;
+    private FrameChecksum checksum;
+
+    @Setup
+    public void setup() {
+        heapData = new byte[size];
+        ThreadLocalRandom.current().nextBytes(heapData);
+        directData = PooledByteBufAllocator.DEFAULT.directBuffer(size);
+        directData.writeBytes(heapData);
+        switch (algorithm) {
+            case "none":
+                checksum = FrameChecksums.NONE;
+                break;
+            case "legacy":
+                checksum = FrameChecksums.LEGACY;
+                break;
+            case "crc32":
+                checksum = FrameChecksums.CRC32;
+                break;
+            default:
+                checksum = FrameChecksums.CRC32C;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        directData.release();
+    }
+
+    @Benchmark
+    public short heap() {
+        return checksum.calc(heapData, 0, size);
+    }
+
+    @Benchmark
+    public short direct() {
+        return checksum.calc(directData, 0, size);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FrameChecksumBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.benchmark;
+
+import com.github.chenhao96.component.process.ProcessInvokeService;
+import com.github.chenhao96.component.process.handler.HandlerFactoryImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerDispatchBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"4", "32"})
+    private int masters;
+
+    @Param({"8", "64"})
+    private int slaves;
+
+    private Map<Byte, Map<Byte, ProcessInvokeService>> process;
+    private HandlerFactoryImpl handlerFactory;
+    private byte[] masterCodes;
+    private byte[] slaveCodes;
+
+    @Setup
+    public void setup() throws Exception {
+        process = new TreeMap<>();
+        for (int m = 1; m <= masters; m++) {
+            Map<Byte, ProcessInvokeService> slaveMap = new TreeMap<>();
+            for (int s = 1; s <= slaves; s++) {
+                slaveMap.put((byte) s, new NoopInvokeService());
+            }
+            process.put((byte) m, slaveMap);
+        }
+
+        handlerFactory = new HandlerFactoryImpl();
+        Field field = HandlerFactoryImpl.class.getDeclaredField("process");
+        field.setAccessible(true);
+        field.set(handlerFactory, process);
+        handlerFactory.addHandlerStop();
+
+        masterCodes = new byte[LOOKUPS];
+        slaveCodes = new byte[LOOKUPS];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < LOOKUPS; i++) {
+            masterCodes[i] = (byte) (random.nextInt(masters) + 1);
+            slaveCodes[i] = (byte) (random.nextInt(slaves) + 1);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int treeMap() {
+        int found = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            Map<Byte, ProcessInvokeService> slaveMap = process.get(masterCodes[i]);
+            if (slaveMap != null && slaveMap.get(slaveCodes[i]) != null) found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int dispatchTable() {
+        int found = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (handlerFactory.getProcessMethod(masterCodes[i], slaveCodes[i]) != null) found++;
+        }
+        return found;
+    }
+
+    private static class NoopInvokeService implements ProcessInvokeService {
+
+        @Override
+        public boolean isReturnVoid() {
+            return true;
+        }
+
+        @Override
+        public String[] getParameterNames() {
+            return new String[0];
+        }
+
+        @Override
+        public Type[] getParameterTypes() {
+            return new Type[0];
+        }
+
+        @Override
+        public Object invokeProcess(Map<String, Object> args) {
+            return null;
+        }
+
+        @Override
+        public Object invokeProcess(Object[] args) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HandlerDispatchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
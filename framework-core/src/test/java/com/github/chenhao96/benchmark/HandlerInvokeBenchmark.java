@@ -0,0 +1,76 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.benchmark;
+
+import com.github.chenhao96.component.process.ProcessHandlerService;
+import com.github.chenhao96.component.process.handler.InvocableHandlerMethod;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerInvokeBenchmark {
+
+    private ScoreHandler handler;
+    private Method method;
+    private InvocableHandlerMethod invocable;
+    private Object[] args;
+
+    @Setup
+    public void setup() throws Exception {
+        handler = new ScoreHandler();
+        method = ScoreHandler.class.getMethod("score", int.class, long.class, String.class);
+        invocable = new InvocableHandlerMethod(handler, method);
+        args = new Object[]{7, 35L, "player"};
+    }
+
+    @Benchmark
+    public Object direct() {
+        return handler.score((Integer) args[0], (Long) args[1], (String) args[2]);
+    }
+
+    @Benchmark
+    public Object reflection() throws Exception {
+        return method.invoke(handler, args);
+    }
+
+    @Benchmark
+    public Object invoker() throws Exception {
+        return invocable.invokeProcess(args);
+    }
+
+    public static class ScoreHandler implements ProcessHandlerService {
+
+        public long score(int level, long base, String name) {
+            return base * level + name.length();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HandlerInvokeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.executor;
+
+import com.github.chenhao96.model.ConfigProperty;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class TestTaskExecutorMailbox {
+
+    private static TaskExecutorComponent start(int poolSize) throws Exception {
+        ConfigProperty.setThreadPoolSize(poolSize);
+        TaskExecutorComponent executor = new TaskExecutorComponent();
+        executor.initialize();
+        executor.start();
+        return executor;
+    }
+
+    @Test(timeout = 10000)
+    public void testKeyedTasksKeepSubmissionOrder() throws Exception {
+        TaskExecutorComponent executor = start(4);
+        int keys = 8;
+        int perKey = 500;
+        List<List<Integer>> results = new ArrayList<>();
+        for (int k = 0; k < keys; k++) {
+            results.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+        CountDownLatch done = new CountDownLatch(keys * perKey);
+        try {
+            for (int i = 0; i < perKey; i++) {
+                for (int k = 0; k < keys; k++) {
+                    int key = k;
+                    int sequence = i;
+                    executor.addHandler("player-" + key, () -> {
+                        results.get(key).add(sequence);
+                        done.countDown();
+                    });
+                }
+            }
+            Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+            for (List<Integer> result : results) {
+                Assert.assertEquals(perKey, result.size());
+                for (int i = 0; i < perKey; i++) {
+                    Assert.assertEquals(i, (int) result.get(i));
+                }
+            }
+        } finally {
+            executor.stop();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testQueueSizeCountsMailboxBacklog() throws Exception {
+        TaskExecutorComponent executor = start(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(11);
+        try {
+            executor.addHandler("player", () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+            for (int i = 0; i < 10; i++) {
+                executor.addHandler("player", done::countDown);
+            }
+            Assert.assertTrue(executor.getQueueSize() >= 10);
+
+            release.countDown();
+            Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(0, executor.getQueueSize());
+        } finally {
+            executor.stop();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testStoppedExecutorRejectsWithoutCounting() throws Exception {
+        TaskExecutorComponent executor = start(1);
+        executor.stop();
+        for (Object key : new Object[]{null, "player"}) {
+            try {
+                executor.addHandler(key, () -> Assert.fail("a rejected task must not run"));
+                Assert.fail("expected RejectedExecutionException");
+            } catch (RejectedExecutionException expected) {
+                Assert.assertEquals(0, executor.getInFlightCount());
+            }
+        }
+        Assert.assertTrue(executor.awaitDrained(System.currentTimeMillis()));
+    }
+}
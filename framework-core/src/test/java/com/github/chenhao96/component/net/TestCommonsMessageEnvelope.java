@@ -0,0 +1,114 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package com.github.chenhao96.component.net;
+
+import com.github.chenhao96.component.net.compress.FrameCompressors;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TestCommonsMessageEnvelope {
+
+    /**
+     * Packs the messages, writes the envelope as a frame and reads it back the way a server does.
+     */
+    private static List<CommonsMessage> roundTrip(List<CommonsMessage> messages, boolean compress) {
+        CommonsMessage envelope = CommonsMessageEnvelope.pack(messages);
+        if (compress) {
+            envelope = FrameCompressors.compress(envelope, FrameCompressors.DEFLATE, 0);
+            Assert.assertTrue(envelope.isCompressed());
+        }
+        byte[] frame = CommonsMessage.createByteByMessage(envelope);
+
+        CommonsMessage received = CommonsMessage.createMessageByByteBuf(Unpooled.wrappedBuffer(frame));
+        Assert.assertEquals(compress, received.isCompressed());
+        received = FrameCompressors.decompress(received, FrameCompressors.DEFLATE, 1024 * 1024);
+        Assert.assertTrue(CommonsMessageEnvelope.isEnvelope(received));
+        try {
+            return CommonsMessageEnvelope.unpack(received);
+        } finally {
+            received.release();
+        }
+    }
+
+    private static void assertMessage(CommonsMessage message, int slaveCode, int requestId, byte[] data) {
+        Assert.assertEquals(1, message.getMasterCode());
+        Assert.assertEquals(slaveCode, message.getSlaveCode());
+        Assert.assertEquals(requestId, message.getRequestId());
+        Assert.assertArrayEquals(data, message.getData());
+        message.release();
+    }
+
+    @Test
+    public void testEmptyEnvelope() {
+        Assert.assertTrue(roundTrip(Collections.emptyList(), false).isEmpty());
+    }
+
+    @Test
+    public void testEmptyPayload() {
+        List<CommonsMessage> result = roundTrip(Arrays.asList(
+                new CommonsMessage((byte) 1, (byte) 1),
+                new CommonsMessage((byte) 1, (byte) 2, new byte[0]),
+                new CommonsMessage((byte) 1, (byte) 3, new byte[]{7})), false);
+
+        Assert.assertEquals(3, result.size());
+        assertMessage(result.get(0), 1, CommonsMessage.NO_REQUEST_ID, new byte[0]);
+        assertMessage(result.get(1), 2, CommonsMessage.NO_REQUEST_ID, new byte[0]);
+        assertMessage(result.get(2), 3, CommonsMessage.NO_REQUEST_ID, new byte[]{7});
+    }
+
+    @Test
+    public void testRequestId() {
+        CommonsMessage request = new CommonsMessage((byte) 1, (byte) 1, new byte[]{1, 2, 3});
+        request.setRequestId(42);
+        CommonsMessage negative = new CommonsMessage((byte) 1, (byte) 2);
+        negative.setRequestId(-7);
+        CommonsMessage push = new CommonsMessage((byte) 1, (byte) 3, new byte[]{4});
+
+        List<CommonsMessage> result = roundTrip(Arrays.asList(request, negative, push), false);
+
+        Assert.assertEquals(3, result.size());
+        Assert.assertTrue(result.get(0).hasRequestId());
+        assertMessage(result.get(0), 1, 42, new byte[]{1, 2, 3});
+        assertMessage(result.get(1), 2, -7, new byte[0]);
+        Assert.assertFalse(result.get(2).hasRequestId());
+        assertMessage(result.get(2), 3, CommonsMessage.NO_REQUEST_ID, new byte[]{4});
+    }
+
+    @Test
+    public void testCompressed() {
+        byte[] text = new byte[4096];
+        Arrays.fill(text, (byte) 'a');
+        CommonsMessage request = new CommonsMessage((byte) 1, (byte) 1, text);
+        request.setRequestId(9);
+        CommonsMessage small = new CommonsMessage((byte) 1, (byte) 2, "b".getBytes(StandardCharsets.UTF_8));
+
+        List<CommonsMessage> result = roundTrip(Arrays.asList(request, small, new CommonsMessage((byte) 1, (byte) 3)), true);
+
+        Assert.assertEquals(3, result.size());
+        assertMessage(result.get(0), 1, 9, text);
+        assertMessage(result.get(1), 2, CommonsMessage.NO_REQUEST_ID, "b".getBytes(StandardCharsets.UTF_8));
+        assertMessage(result.get(2), 3, CommonsMessage.NO_REQUEST_ID, new byte[0]);
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.process.handler;
+
+import com.github.chenhao96.component.process.AsyncHandler;
+import com.github.chenhao96.component.process.ProcessHandlerService;
+import com.github.chenhao96.component.process.ProcessInvokeService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestAsyncHandlerLocks {
+
+    public static class PlayerHandler implements ProcessHandlerService {
+
+        private final AtomicInteger inside = new AtomicInteger();
+        private final AtomicInteger maxInside = new AtomicInteger();
+        private final CyclicBarrier barrier = new CyclicBarrier(2);
+
+        @AsyncHandler("playerId")
+        public void join(int playerId) throws Exception {
+            enter();
+        }
+
+        @AsyncHandler("playerId")
+        public void leave(int playerId) throws Exception {
+            enter();
+        }
+
+        @AsyncHandler("playerId")
+        public void meet(int playerId) throws Exception {
+            // only returns when another call is inside a handler of this bean at the same time
+            barrier.await(5, TimeUnit.SECONDS);
+        }
+
+        private void enter() throws InterruptedException {
+            int count = inside.incrementAndGet();
+            maxInside.accumulateAndGet(count, Math::max);
+            Thread.sleep(2);
+            inside.decrementAndGet();
+        }
+    }
+
+    private static ProcessInvokeService register(HandlerFactoryImpl factory, byte slaveCode, PlayerHandler bean, String name) throws Exception {
+        Method method = PlayerHandler.class.getMethod(name, int.class);
+        factory.addHandler((byte) 1, slaveCode, bean, method, method.getAnnotation(AsyncHandler.class));
+        return factory.getProcessMethod((byte) 1, slaveCode);
+    }
+
+    private static Thread invokeTimes(ProcessInvokeService method, int playerId, int times, AtomicInteger failures) {
+        Thread thread = new Thread(() -> {
+            for (int i = 0; i < times; i++) {
+                try {
+                    method.invokeProcess(new Object[]{playerId});
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test(timeout = 10000)
+    public void testSameKeyExcludesAcrossMethods() throws Exception {
+        HandlerFactoryImpl factory = new HandlerFactoryImpl();
+        PlayerHandler bean = new PlayerHandler();
+        ProcessInvokeService join = register(factory, (byte) 1, bean, "join");
+        ProcessInvokeService leave = register(factory, (byte) 2, bean, "leave");
+        factory.addHandlerStop();
+
+        AtomicInteger failures = new AtomicInteger();
+        Thread first = invokeTimes(join, 7, 200, failures);
+        Thread second = invokeTimes(leave, 7, 200, failures);
+        first.join();
+        second.join();
+
+        Assert.assertEquals(0, failures.get());
+        Assert.assertEquals(1, bean.maxInside.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testDifferentKeysRunInParallel() throws Exception {
+        HandlerFactoryImpl factory = new HandlerFactoryImpl();
+        PlayerHandler bean = new PlayerHandler();
+        ProcessInvokeService meet = register(factory, (byte) 3, bean, "meet");
+        factory.addHandlerStop();
+
+        AtomicInteger failures = new AtomicInteger();
+        // 1 and 2 land on different stripes, both calls must be inside meet together to pass the barrier
+        Thread first = invokeTimes(meet, 1, 1, failures);
+        Thread second = invokeTimes(meet, 2, 1, failures);
+        first.join();
+        second.join();
+
+        Assert.assertEquals(0, failures.get());
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.process.handler;
+
+import com.github.chenhao96.component.process.ProcessHandlerService;
+import com.github.chenhao96.model.TestModel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Argument binding must keep resolving the same values it did before the binding plan was precomputed.
+ */
+public class TestInvocableHandlerMethodK {
+
+    public static class ReadOnlyModel {
+
+        private int code;
+
+        public int getCode() {
+            return code;
+        }
+
+        public void setCode(int code) {
+            this.code = code;
+        }
+
+        public int getTotal() {
+            return code * 2;
+        }
+    }
+
+    public static class BindingHandler implements ProcessHandlerService {
+
+        public void map(@MapParameter(prefix = "ext") Map<String, Object> ext, Map<String, Object> plain) {
+        }
+
+        public void list(List<Integer> ids) {
+        }
+
+        public void cards(HashSet<TestModel> cards) {
+        }
+
+        public void model(TestModel model) {
+        }
+
+        public void readOnly(ReadOnlyModel model) {
+        }
+
+        public void primitive(int code) {
+        }
+    }
+
+    private static Object[] resolve(String name, Map<String, Object> providedArgs) throws Exception {
+        Method method = null;
+        for (Method candidate : BindingHandler.class.getMethods()) {
+            if (candidate.getName().equals(name)) method = candidate;
+        }
+        return new InvocableHandlerMethodK(new BindingHandler(), method).getMethodArgumentValues(providedArgs);
+    }
+
+    private static Map<String, Object> args(Object... keyValues) {
+        Map<String, Object> result = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            result.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return result;
+    }
+
+    @Test
+    public void testMapParameter() throws Exception {
+        Map<String, Object> ext = args("level", 3);
+        Object[] values = resolve("map", args("ext", ext));
+        Assert.assertSame(ext, values[0]);
+        Assert.assertNull(values[1]);
+    }
+
+    @Test(expected = Exception.class)
+    public void testMapParameterFailure() throws Exception {
+        // not a map under the prefix, the value is converted like any interface parameter and fails
+        resolve("map", args("ext", "not a map"));
+    }
+
+    @Test
+    public void testInterfaceParameter() throws Exception {
+        List<Integer> ids = Arrays.asList(1, 2);
+        Assert.assertSame(ids, resolve("list", args("ids", ids))[0]);
+
+        Object converted = resolve("list", args("ids", new LinkedHashSet<>(Arrays.asList(3, 4))))[0];
+        Assert.assertEquals(Arrays.asList(3, 4), converted);
+    }
+
+    @Test(expected = Exception.class)
+    public void testInterfaceParameterFailure() throws Exception {
+        resolve("list", args("ids", "abc"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCollectionParameter() throws Exception {
+        Map<String, Object> card = args("code", 1, "name", "ace");
+        Object cards = resolve("cards", args("cards", Collections.singletonList(card)))[0];
+        Assert.assertTrue(cards instanceof HashSet);
+        // the raw collection type carries no element type, elements stay maps
+        Assert.assertEquals(Collections.singleton(card), cards);
+
+        Assert.assertNull(resolve("cards", args("cards", "abc"))[0]);
+    }
+
+    @Test
+    public void testBeanParameter() throws Exception {
+        Map<String, Object> nested = args("code", 2);
+        TestModel model = (TestModel) resolve("model", args("model", nested, "code", "7", "name", "n"))[0];
+        Assert.assertEquals(7, model.getCode());
+        Assert.assertEquals("n", model.getName());
+        Assert.assertEquals(2, model.getModel().getCode());
+        Assert.assertNull(model.getCards());
+
+        Assert.assertNull(resolve("model", args("model", nested, "code", "seven"))[0]);
+    }
+
+    @Test
+    public void testReadOnlyProperty() throws Exception {
+        ReadOnlyModel model = (ReadOnlyModel) resolve("readOnly", args("model", args(), "code", 4))[0];
+        Assert.assertEquals(4, model.getCode());
+
+        Assert.assertNull(resolve("readOnly", args("model", args(), "code", 4, "total", 8))[0]);
+    }
+
+    @Test
+    public void testPrimitiveParameter() throws Exception {
+        Assert.assertEquals(5, resolve("primitive", args("code", 5))[0]);
+        assertUnresolved(args());
+        assertUnresolved(args("code", "5"));
+        assertUnresolved(null);
+    }
+
+    private static void assertUnresolved(Map<String, Object> providedArgs) throws Exception {
+        try {
+            resolve("primitive", providedArgs);
+            Assert.fail("a primitive without a value must not resolve");
+        } catch (IllegalStateException expected) {
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package com.github.chenhao96.component.socket;
+
+import com.github.chenhao96.component.net.CommonsMessage;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class TestNioSocketConnectionContext {
+
+    private ServerSocketChannel server;
+    private SocketChannel peer;
+    private Selector selector;
+    private NioSocketConnectionContext context;
+
+    @Before
+    public void setUp() throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        peer = SocketChannel.open(server.getLocalAddress());
+        SocketChannel channel = server.accept();
+        channel.configureBlocking(false);
+        selector = Selector.open();
+        // no reactor, only the read side is exercised
+        context = new NioSocketConnectionContext(null, channel, channel.register(selector, SelectionKey.OP_READ));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        context.closeQuietly();
+        selector.close();
+        peer.close();
+        server.close();
+    }
+
+    private static byte[] frame(int slaveCode, byte[] data) {
+        return CommonsMessage.createByteByMessage(new CommonsMessage((byte) 1, (byte) slaveCode, data));
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) length += part.length;
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+
+    /**
+     * Writes the bytes from the peer and reads exactly them into the connection's buffer.
+     */
+    private void deliver(byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) peer.write(buffer);
+        int read = 0;
+        while (read < bytes.length) {
+            int count = context.readFromChannel();
+            Assert.assertTrue(count >= 0);
+            read += count;
+        }
+    }
+
+    private static void assertMessage(CommonsMessage message, int slaveCode, byte[] data) {
+        Assert.assertNotNull(message);
+        Assert.assertEquals(slaveCode, message.getSlaveCode());
+        Assert.assertArrayEquals(data, message.getData());
+    }
+
+    @Test(timeout = 5000)
+    public void testSplitFrame() throws IOException {
+        byte[] data = "hello".getBytes(StandardCharsets.UTF_8);
+        byte[] frame = frame(1, data);
+
+        deliver(Arrays.copyOfRange(frame, 0, 3));
+        Assert.assertNull(context.receiveMessage());
+        deliver(Arrays.copyOfRange(frame, 3, frame.length - 1));
+        Assert.assertNull(context.receiveMessage());
+        deliver(Arrays.copyOfRange(frame, frame.length - 1, frame.length));
+
+        CommonsMessage message = context.receiveMessage();
+        assertMessage(message, 1, data);
+        message.release();
+        Assert.assertNull(context.receiveMessage());
+    }
+
+    @Test(timeout = 5000)
+    public void testSeveralFramesInOneRead() throws IOException {
+        deliver(concat(frame(1, new byte[0]), frame(2, new byte[]{1, 2, 3}), frame(3, new byte[]{4})));
+
+        CommonsMessage first = context.receiveMessage();
+        CommonsMessage second = context.receiveMessage();
+        CommonsMessage third = context.receiveMessage();
+        assertMessage(first, 1, new byte[0]);
+        assertMessage(second, 2, new byte[]{1, 2, 3});
+        assertMessage(third, 3, new byte[]{4});
+        Assert.assertNull(context.receiveMessage());
+        first.release();
+        second.release();
+        third.release();
+    }
+
+    @Test(timeout = 5000)
+    public void testPartialFrameRetainedWhileMessageHeld() throws IOException {
+        byte[] second = frame(2, "second".getBytes(StandardCharsets.UTF_8));
+        int half = second.length / 2;
+        deliver(concat(frame(1, "first".getBytes(StandardCharsets.UTF_8)), Arrays.copyOfRange(second, 0, half)));
+
+        // the first message still holds a slice of the buffer when the partial frame is moved
+        CommonsMessage held = context.receiveMessage();
+        Assert.assertNull(context.receiveMessage());
+        deliver(Arrays.copyOfRange(second, half, second.length));
+
+        CommonsMessage message = context.receiveMessage();
+        assertMessage(message, 2, "second".getBytes(StandardCharsets.UTF_8));
+        assertMessage(held, 1, "first".getBytes(StandardCharsets.UTF_8));
+        message.release();
+        held.release();
+        Assert.assertNull(context.receiveMessage());
+    }
+
+    @Test(timeout = 5000)
+    public void testPartialFrameRetainedAfterRelease() throws IOException {
+        byte[] second = frame(2, new byte[]{5, 6, 7, 8});
+        deliver(concat(frame(1, new byte[]{1}), Arrays.copyOfRange(second, 0, 7)));
+
+        CommonsMessage first = context.receiveMessage();
+        assertMessage(first, 1, new byte[]{1});
+        first.release();
+        Assert.assertNull(context.receiveMessage());
+        deliver(Arrays.copyOfRange(second, 7, second.length));
+
+        CommonsMessage message = context.receiveMessage();
+        assertMessage(message, 2, new byte[]{5, 6, 7, 8});
+        message.release();
+    }
+
+    @Test(timeout = 5000)
+    public void testFrameLargerThanBuffer() throws IOException {
+        byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+        byte[] frame = frame(1, data);
+
+        for (int offset = 0; offset < frame.length; offset += 4000) {
+            Assert.assertNull(context.receiveMessage());
+            deliver(Arrays.copyOfRange(frame, offset, Math.min(frame.length, offset + 4000)));
+        }
+        CommonsMessage message = context.receiveMessage();
+        assertMessage(message, 1, data);
+        message.release();
+    }
+}
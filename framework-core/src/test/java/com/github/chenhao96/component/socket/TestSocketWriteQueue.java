@@ -0,0 +1,232 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.chenhao96.component.socket;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestSocketWriteQueue {
+
+    private static class QueueExecutor implements Executor {
+
+        private final Queue<Runnable> queue = new ArrayDeque<>();
+
+        void runAll() {
+            Runnable task;
+            while ((task = queue.poll()) != null) task.run();
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            queue.add(command);
+        }
+    }
+
+    /**
+     * Blocks every write until released, like a client that stopped reading.
+     */
+    private static class StuckOutputStream extends ByteArrayOutputStream {
+
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.write(b, off, len);
+        }
+    }
+
+    @Test
+    public void testDropWhenFull() {
+        QueueExecutor executor = new QueueExecutor();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SocketWriteQueue queue = new SocketWriteQueue(out, 2, WriteOverflowPolicy.DROP, executor, null);
+
+        Assert.assertTrue(queue.offer(new byte[]{1}));
+        Assert.assertTrue(queue.offer(new byte[]{2}));
+        Assert.assertFalse(queue.offer(new byte[]{3}));
+        Assert.assertEquals(1, queue.getDroppedFrames());
+
+        executor.runAll();
+        Assert.assertArrayEquals(new byte[]{1, 2}, out.toByteArray());
+        Assert.assertEquals(2, queue.getWrittenFrames());
+        Assert.assertEquals(1, queue.getFlushes());
+        Assert.assertTrue(queue.offer(new byte[]{4}));
+    }
+
+    @Test
+    public void testDisconnectWhenFull() {
+        QueueExecutor executor = new QueueExecutor();
+        AtomicInteger closed = new AtomicInteger();
+        SocketWriteQueue queue = new SocketWriteQueue(new ByteArrayOutputStream(), 1, WriteOverflowPolicy.DISCONNECT,
+                executor, closed::incrementAndGet);
+
+        Assert.assertTrue(queue.offer(new byte[]{1}));
+        Assert.assertFalse(queue.offer(new byte[]{2}));
+        Assert.assertTrue(queue.isFailed());
+        Assert.assertEquals(1, closed.get());
+        Assert.assertEquals(0, queue.getSize());
+        Assert.assertFalse(queue.offer(new byte[]{3}));
+        Assert.assertEquals(1, closed.get());
+    }
+
+    @Test(timeout = 5000)
+    public void testDisconnectDoesNotWaitForStuckWriter() throws Exception {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        StuckOutputStream out = new StuckOutputStream();
+        CountDownLatch closed = new CountDownLatch(1);
+        SocketWriteQueue queue = new SocketWriteQueue(out, 1, WriteOverflowPolicy.DISCONNECT, writer, closed::countDown);
+        try {
+            Assert.assertTrue(queue.offer(new byte[]{1}));
+            out.writing.await();
+            Assert.assertTrue(queue.offer(new byte[]{2}));
+            Assert.assertFalse(queue.offer(new byte[]{3}));
+            Assert.assertTrue(closed.await(1, TimeUnit.SECONDS));
+            // close right after the failure must not wait for the writer either
+            Assert.assertFalse(queue.awaitFlushed(System.currentTimeMillis()));
+        } finally {
+            out.release.countDown();
+            writer.shutdown();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testBlockWaitsForWriter() throws Exception {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        StuckOutputStream out = new StuckOutputStream();
+        SocketWriteQueue queue = new SocketWriteQueue(out, 1, WriteOverflowPolicy.BLOCK, writer, null);
+        try {
+            Assert.assertTrue(queue.offer(new byte[]{1}));
+            out.writing.await();
+            Assert.assertTrue(queue.offer(new byte[]{2}));
+
+            Thread sender = new Thread(() -> queue.offer(new byte[]{3}));
+            sender.start();
+            sender.join(200);
+            Assert.assertTrue("sender must wait for room instead of writing itself", sender.isAlive());
+
+            out.release.countDown();
+            sender.join();
+            writer.shutdown();
+            Assert.assertTrue(writer.awaitTermination(1, TimeUnit.SECONDS));
+            Assert.assertArrayEquals(new byte[]{1, 2, 3}, out.toByteArray());
+            Assert.assertEquals(0, queue.getDroppedFrames());
+        } finally {
+            out.release.countDown();
+            writer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBlockWithoutExecutorWritesInline() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SocketWriteQueue queue = new SocketWriteQueue(out, 1, WriteOverflowPolicy.BLOCK, null, null);
+
+        Assert.assertTrue(queue.offer(new byte[]{1}));
+        Assert.assertTrue(queue.offer(new byte[]{2}));
+        Assert.assertArrayEquals(new byte[]{1, 2}, out.toByteArray());
+    }
+
+    @Test
+    public void testWriteFailureCloses() {
+        AtomicInteger closed = new AtomicInteger();
+        SocketWriteQueue queue = new SocketWriteQueue(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("broken pipe");
+            }
+        }, 4, WriteOverflowPolicy.BLOCK, null, closed::incrementAndGet);
+
+        Assert.assertTrue(queue.offer(new byte[]{1}));
+        Assert.assertTrue(queue.isFailed());
+        Assert.assertEquals(1, closed.get());
+        Assert.assertFalse(queue.offer(new byte[]{2}));
+    }
+
+    @Test
+    public void testRejectedWriterFails() {
+        AtomicInteger closed = new AtomicInteger();
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        writer.shutdown();
+        SocketWriteQueue queue = new SocketWriteQueue(new ByteArrayOutputStream(), 4, WriteOverflowPolicy.BLOCK,
+                writer, closed::incrementAndGet);
+
+        queue.offer(new byte[]{1});
+        Assert.assertTrue(queue.isFailed());
+        Assert.assertEquals(1, closed.get());
+    }
+
+    @Test(timeout = 5000)
+    public void testAwaitFlushedWaitsForWriter() throws Exception {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        StuckOutputStream out = new StuckOutputStream();
+        SocketWriteQueue queue = new SocketWriteQueue(out, 4, WriteOverflowPolicy.BLOCK, writer, null);
+        try {
+            Assert.assertTrue(queue.offer(new byte[]{1}));
+            Assert.assertTrue(queue.offer(new byte[]{2}));
+            out.writing.await();
+            new Thread(() -> {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ignored) {
+                }
+                out.release.countDown();
+            }).start();
+            Assert.assertTrue(queue.awaitFlushed(System.currentTimeMillis() + 3000));
+            Assert.assertArrayEquals(new byte[]{1, 2}, out.toByteArray());
+        } finally {
+            out.release.countDown();
+            writer.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testAwaitFlushedGivesUpOnStuckWriter() throws Exception {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        StuckOutputStream out = new StuckOutputStream();
+        SocketWriteQueue queue = new SocketWriteQueue(out, 4, WriteOverflowPolicy.BLOCK, writer, null);
+        try {
+            Assert.assertTrue(queue.offer(new byte[]{1}));
+            out.writing.await();
+            long start = System.currentTimeMillis();
+            Assert.assertFalse(queue.awaitFlushed(start + 200));
+            Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+        } finally {
+            out.release.countDown();
+            writer.shutdownNow();
+        }
+    }
+}
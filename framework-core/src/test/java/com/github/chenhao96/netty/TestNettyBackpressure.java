@@ -0,0 +1,109 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.chenhao96.netty;
+
+import com.github.chenhao96.component.executor.TaskExecutorService;
+import com.github.chenhao96.component.netty.NettyBackpressureController;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+public class TestNettyBackpressure {
+
+    private static class QueueExecutor implements TaskExecutorService {
+
+        private final Queue<Runnable> queue = new ArrayDeque<>();
+
+        void runAll() {
+            Runnable task;
+            while ((task = queue.poll()) != null) task.run();
+        }
+
+        @Override
+        public void addHandler(Runnable task) {
+            queue.add(task);
+        }
+
+        @Override
+        public void addHandlerDelay(Runnable task, long delay, TimeUnit unit) {
+        }
+
+        @Override
+        public void addHandlerDelay(Runnable task, long initialDelay, long delay, TimeUnit unit) {
+        }
+
+        @Override
+        public void addHandlerRate(Runnable task, long period, TimeUnit unit) {
+        }
+
+        @Override
+        public void addHandlerRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        }
+
+        @Override
+        public int getQueueSize() {
+            return queue.size();
+        }
+
+        @Override
+        public int getActiveCount() {
+            return 0;
+        }
+    }
+
+    @Test
+    public void testPauseAndResumeOnInFlight() {
+        QueueExecutor executor = new QueueExecutor();
+        NettyBackpressureController controller = new NettyBackpressureController(executor, 100, 100, 0, 2);
+        EmbeddedChannel channel = new EmbeddedChannel();
+
+        controller.submit(channel, () -> {
+        });
+        Assert.assertTrue(channel.config().isAutoRead());
+        controller.submit(channel, () -> {
+        });
+        Assert.assertFalse(channel.config().isAutoRead());
+        Assert.assertEquals(1, controller.getPausedChannelCount());
+
+        executor.runAll();
+        Assert.assertTrue(channel.config().isAutoRead());
+        Assert.assertEquals(0, controller.getPausedChannelCount());
+        Assert.assertEquals(0, controller.getInFlightCount(channel));
+    }
+
+    @Test
+    public void testPauseOnQueueDepth() {
+        QueueExecutor executor = new QueueExecutor();
+        NettyBackpressureController controller = new NettyBackpressureController(executor, 0, 2, 100, 100);
+        EmbeddedChannel first = new EmbeddedChannel();
+        EmbeddedChannel second = new EmbeddedChannel();
+
+        controller.submit(first, () -> {
+        });
+        controller.submit(second, () -> {
+        });
+        Assert.assertTrue(first.config().isAutoRead());
+        Assert.assertFalse(second.config().isAutoRead());
+
+        executor.runAll();
+        Assert.assertTrue(second.config().isAutoRead());
+    }
+}
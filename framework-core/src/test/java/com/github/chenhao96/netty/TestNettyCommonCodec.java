@@ -0,0 +1,104 @@
+/**
+ * Copyright 2019 ChenHao96
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.chenhao96.netty;
+
+import com.github.chenhao96.component.net.CommonsMessage;
+import com.github.chenhao96.component.netty.NettyCommonCodecFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class TestNettyCommonCodec {
+
+    private static ByteBuf frames(CommonsMessage... messages) {
+        ByteBuf result = Unpooled.buffer();
+        for (CommonsMessage message : messages) {
+            result.writeBytes(CommonsMessage.createByteBufByMessage(message));
+        }
+        return result;
+    }
+
+    @Test
+    public void testPartialFrame() {
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyCommonCodecFactory());
+        ByteBuf frame = frames(new CommonsMessage((byte) 1, (byte) 2, "hello".getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertFalse(channel.writeInbound(frame.readRetainedSlice(5)));
+        Assert.assertNull(channel.readInbound());
+        Assert.assertTrue(channel.writeInbound(frame));
+
+        CommonsMessage message = channel.readInbound();
+        Assert.assertEquals(1, message.getMasterCode());
+        Assert.assertEquals(2, message.getSlaveCode());
+        Assert.assertEquals("hello", new String(message.getData(), StandardCharsets.UTF_8));
+        message.release();
+        Assert.assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testCoalescedFrames() {
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyCommonCodecFactory());
+        Assert.assertTrue(channel.writeInbound(frames(
+                new CommonsMessage((byte) 1, (byte) 1),
+                new CommonsMessage((byte) 1, (byte) 2, new byte[]{1, 2, 3}),
+                new CommonsMessage((byte) 1, (byte) 3, new byte[]{4}))));
+
+        for (byte slaveCode = 1; slaveCode <= 3; slaveCode++) {
+            CommonsMessage message = channel.readInbound();
+            Assert.assertEquals(slaveCode, message.getSlaveCode());
+            message.release();
+        }
+        Assert.assertNull(channel.readInbound());
+    }
+
+    @Test
+    public void testMaxFrameLength() {
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyCommonCodecFactory(16));
+        channel.writeInbound(frames(new CommonsMessage((byte) 1, (byte) 1, new byte[64])));
+        Assert.assertNull(channel.readInbound());
+        Assert.assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testRequestId() {
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyCommonCodecFactory());
+        CommonsMessage request = new CommonsMessage((byte) 1, (byte) 2, new byte[]{1, 2, 3});
+        request.setRequestId(42);
+        CommonsMessage empty = new CommonsMessage((byte) 1, (byte) 3);
+        empty.setRequestId(-7);
+        Assert.assertTrue(channel.writeInbound(frames(request, empty)));
+
+        CommonsMessage message = channel.readInbound();
+        Assert.assertEquals(42, message.getRequestId());
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, message.getData());
+        message.release();
+        message = channel.readInbound();
+        Assert.assertEquals(-7, message.getRequestId());
+        Assert.assertEquals(3, message.getSlaveCode());
+
+        Assert.assertTrue(channel.writeOutbound(request));
+        ByteBuf encoded = channel.readOutbound();
+        CommonsMessage decoded = CommonsMessage.createMessageByByteBuf(encoded);
+        Assert.assertEquals(42, decoded.getRequestId());
+        decoded.release();
+        encoded.release();
+    }
+}
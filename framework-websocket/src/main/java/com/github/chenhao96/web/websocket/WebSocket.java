@@ -25,15 +25,20 @@ import com.github.chenhao96.component.process.ProcessInvokeService;
 import com.github.chenhao96.component.process.handler.HandlerFactory;
 import com.github.chenhao96.utils.JsonUtils;
 import com.github.chenhao96.utils.encrypt.MD5Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import javax.annotation.Resource;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RejectedExecutionException;
 
 public class WebSocket extends TextWebSocketHandler {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebSocket.class);
+
     @Resource
     private HandlerFactory handlerFactory;
 
@@ -66,7 +71,12 @@ public class WebSocket extends TextWebSocketHandler {
                             task.setConnectionContext(frameHandler);
                             task.setInvokeService(invokeService);
                             task.setMessageConvertToHandlerArgs(messageConvertToHandlerArgs);
-                            executorService.addHandler(task);
+                            try {
+                                executorService.addHandler(task);
+                            } catch (RejectedExecutionException e) {
+                                task.release();
+                                LOGGER.warn("handler task rejected, message dropped.", e);
+                            }
                         }
                     }
                 }
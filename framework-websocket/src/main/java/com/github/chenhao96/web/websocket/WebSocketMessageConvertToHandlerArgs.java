@@ -16,7 +16,6 @@
 
 package com.github.chenhao96.web.websocket;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.github.chenhao96.component.net.CommonsMessage;
 import com.github.chenhao96.component.net.DefaultMessageConvertToHandlerArgs;
 import com.github.chenhao96.utils.JsonUtils;
@@ -32,10 +31,10 @@ public class WebSocketMessageConvertToHandlerArgs extends DefaultMessageConvertT
     public Map<String, Object> convertArgs() {
         CommonsMessage message = getCommonsMessage();
         if (message == null) return null;
-        String requestBody = new String(message.getData(), StandardCharsets.UTF_8);
+        byte[] requestBody = message.getData();
+        if (requestBody == null) return null;
         try {
-            JsonNode jsonNode = JsonUtils.jsonStr2JsonNodeStatic(requestBody);
-            return object2FlatMapper.toFlatMapper(jsonNode);
+            return object2FlatMapper.toFlatMapper(requestBody, 0, requestBody.length);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }